@@ -0,0 +1,132 @@
+package org.fizz_buzz.cloud.repository;
+
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import io.minio.http.HttpUtils;
+import okhttp3.Dispatcher;
+import org.fizz_buzz.cloud.concurrent.BulkOperationExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.MinIOContainer;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// requires Docker, MinIO is started in a container
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class S3RepositoryBenchmark {
+
+    private static final String S3_USER = "minioadmin";
+    private static final String S3_PASS = "minioadmin";
+    private static final String BUCKET = "benchmark";
+    private static final String USER_DIRECTORY = "user-1-files/";
+    private static final int DIRECTORIES = 32;
+    private static final int MAX_REQUESTS = 64;
+
+    @Param({"blocking", "async"})
+    private String client;
+
+    // few paths of a directory are checked one by one, many are listed
+    @Param({"8", "64"})
+    private int pathCount;
+
+    private MinIOContainer minioContainer;
+    private BulkOperationExecutor bulkOperationExecutor;
+    private S3Repository s3Repository;
+    private List<String> paths;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        minioContainer = new MinIOContainer("minio/minio:latest")
+                .withUserName(S3_USER)
+                .withPassword(S3_PASS);
+        minioContainer.start();
+
+        MinioClient minioClient = MinioClient.builder()
+                .endpoint(minioContainer.getS3URL())
+                .credentials(S3_USER, S3_PASS)
+                .build();
+
+        var multipartMinioClient = new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(minioContainer.getS3URL())
+                .credentials(S3_USER, S3_PASS)
+                .build());
+
+        bulkOperationExecutor = new BulkOperationExecutor(16);
+
+        var uploadPartPolicy = new UploadPartPolicy(DataSize.ofMegabytes(16), DataSize.ofMegabytes(8),
+                DataSize.ofGigabytes(100), 4);
+        var minioRepository = new MinioRepository(minioClient, minioClient, multipartMinioClient,
+                bulkOperationExecutor, uploadPartPolicy);
+
+        s3Repository = client.equals("async")
+                ? new AsyncMinioRepository(minioRepository, minioAsyncClient())
+                : minioRepository;
+
+        s3Repository.createBucket(BUCKET);
+
+        // paths are inside user directory, as the application checks them, half of them exist
+        paths = IntStream.range(0, pathCount)
+                .mapToObj(i -> "%sdirectory-%02d/".formatted(USER_DIRECTORY, i))
+                .toList();
+
+        s3Repository.createDirectories(BUCKET, paths.subList(0, pathCount / 2));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        bulkOperationExecutor.shutdown();
+        minioContainer.stop();
+    }
+
+    @Benchmark
+    public Set<String> findExistingPaths() {
+
+        return s3Repository.findExistingPaths(BUCKET, paths);
+    }
+
+    @Benchmark
+    public void createDirectories() {
+
+        String prefix = "%screated-%s/".formatted(USER_DIRECTORY, UUID.randomUUID());
+
+        s3Repository.createDirectories(BUCKET, IntStream.range(0, DIRECTORIES)
+                .mapToObj(i -> "%sdirectory-%d/".formatted(prefix, i))
+                .toList());
+    }
+
+    private MinioAsyncClient minioAsyncClient() {
+
+        Dispatcher dispatcher = new Dispatcher();
+
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS);
+
+        long timeout = TimeUnit.MINUTES.toMillis(5);
+
+        return MinioAsyncClient.builder()
+                .endpoint(minioContainer.getS3URL())
+                .credentials(S3_USER, S3_PASS)
+                .httpClient(HttpUtils.newDefaultHttpClient(timeout, timeout, timeout)
+                        .newBuilder()
+                        .dispatcher(dispatcher)
+                        .build())
+                .build();
+    }
+}
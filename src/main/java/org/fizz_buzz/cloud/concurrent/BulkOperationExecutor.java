@@ -0,0 +1,165 @@
+package org.fizz_buzz.cloud.concurrent;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// calls run in virtual threads, items are pulled from the source only when there is a free slot,
+// operations of all concurrent calls together are bounded by parallelism
+@Component
+@PropertySource("classpath:application.properties")
+public class BulkOperationExecutor {
+
+    @FunctionalInterface
+    public interface BulkOperation<T> {
+
+        void apply(T item) throws Exception;
+    }
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // marks threads of operations, so nested calls don't wait for permits held by their callers
+    private final ThreadLocal<Boolean> inOperation = ThreadLocal.withInitial(() -> false);
+    private final int parallelism;
+    private final Semaphore permits;
+
+    public BulkOperationExecutor(@Value("${application.bulk-operations.parallelism}") int parallelism) {
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, but was %d".formatted(parallelism));
+        }
+
+        this.parallelism = parallelism;
+        this.permits = new Semaphore(parallelism, true);
+    }
+
+    public <T> BulkOperationResult<T> execute(Stream<T> items, BulkOperation<T> operation) {
+
+        return execute(items, operation, parallelism);
+    }
+
+    // failure of one item doesn't stop the others, all failures are collected into result,
+    // parallelism bounds this call, while the executor-wide one bounds all of them
+    public <T> BulkOperationResult<T> execute(Stream<T> items, BulkOperation<T> operation, int parallelism) {
+
+        Semaphore slots = new Semaphore(parallelism);
+        // operations of a nested call run within the permit of their caller
+        boolean nested = inOperation.get();
+        AtomicLong succeeded = new AtomicLong();
+        Queue<BulkOperationFailure<T>> failures = new ConcurrentLinkedQueue<>();
+
+        try (items) {
+
+            Iterator<T> iterator = items.iterator();
+
+            try {
+
+                while (iterator.hasNext()) {
+
+                    // backpressure: the next item is taken only when one of running operations is finished
+                    slots.acquire();
+
+                    if (!nested) {
+
+                        try {
+
+                            permits.acquire();
+                        } catch (InterruptedException e) {
+
+                            slots.release();
+                            throw e;
+                        }
+                    }
+
+                    T item;
+
+                    try {
+
+                        item = iterator.next();
+                    } catch (RuntimeException e) {
+
+                        release(slots, nested);
+                        throw e;
+                    }
+
+                    try {
+
+                        executor.execute(() -> {
+
+                            inOperation.set(true);
+
+                            try {
+
+                                operation.apply(item);
+                                succeeded.incrementAndGet();
+                            } catch (Exception e) {
+
+                                failures.add(new BulkOperationFailure<>(item, e));
+                            } finally {
+
+                                release(slots, nested);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+
+                        // executor is shut down, the rest of items can't be processed either
+                        release(slots, nested);
+                        failures.add(new BulkOperationFailure<>(item, e));
+                        break;
+                    }
+                }
+            } finally {
+
+                // waiting for all running operations, even if source of items failed
+                slots.acquireUninterruptibly(parallelism);
+            }
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        return new BulkOperationResult<>(succeeded.get(), new ArrayList<>(failures));
+    }
+
+    // executor-wide permit is released first, so it's free once the caller has got all its slots back
+    private void release(Semaphore slots, boolean nested) {
+
+        if (!nested) {
+            permits.release();
+        }
+
+        slots.release();
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+
+        return executor.submit(task);
+    }
+
+    // continuations of futures which may block, so they don't hold threads of HTTP clients
+    public Executor continuations() {
+
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,4 @@
+package org.fizz_buzz.cloud.concurrent;
+
+public record BulkOperationFailure<T>(T item, Exception cause) {
+}
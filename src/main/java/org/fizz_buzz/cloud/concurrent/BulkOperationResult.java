@@ -0,0 +1,20 @@
+package org.fizz_buzz.cloud.concurrent;
+
+import org.fizz_buzz.cloud.exception.BulkOperationException;
+
+import java.util.List;
+
+public record BulkOperationResult<T>(long succeeded, List<BulkOperationFailure<T>> failures) {
+
+    public boolean isSuccessful() {
+
+        return failures.isEmpty();
+    }
+
+    public void throwIfFailed() {
+
+        if (!isSuccessful()) {
+            throw new BulkOperationException(failures);
+        }
+    }
+}
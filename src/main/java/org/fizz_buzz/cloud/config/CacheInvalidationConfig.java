@@ -0,0 +1,24 @@
+package org.fizz_buzz.cloud.config;
+
+import org.fizz_buzz.cloud.event.ResourcesChangedBus;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class CacheInvalidationConfig {
+
+    @Bean
+    RedisMessageListenerContainer resourcesChangedListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    ResourcesChangedBus resourcesChangedBus) {
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(resourcesChangedBus, new ChannelTopic(resourcesChangedBus.getChannel()));
+
+        return container;
+    }
+}
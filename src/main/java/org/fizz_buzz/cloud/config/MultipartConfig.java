@@ -0,0 +1,31 @@
+package org.fizz_buzz.cloud.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+
+@Configuration
+public class MultipartConfig {
+
+    // body of the streamed upload is parsed by its controller while it's received
+    private static final String STREAMED_UPLOAD_PATH = "/api/v1/resource/stream";
+
+    // replaces the resolver of Spring Boot, so only the streamed upload is left unresolved,
+    // other multipart requests are still parsed before their handlers, and their parsing errors are reported as usual
+    @Bean(DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public MultipartResolver multipartResolver() {
+
+        return new StandardServletMultipartResolver() {
+
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+
+                return super.isMultipart(request)
+                        && !request.getRequestURI().equals(request.getContextPath().concat(STREAMED_UPLOAD_PATH));
+            }
+        };
+    }
+}
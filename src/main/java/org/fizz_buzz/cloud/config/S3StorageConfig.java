@@ -1,15 +1,26 @@
 package org.fizz_buzz.cloud.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import io.minio.http.HttpUtils;
+import okhttp3.Dispatcher;
+import org.fizz_buzz.cloud.repository.MultipartMinioClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.PropertySource;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @PropertySource("classpath:application.properties")
 public class S3StorageConfig {
 
+    // the same timeout as minio client sets for its default HTTP client
+    private static final long HTTP_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
     @Value("${minio.url}")
     private String url;
 
@@ -19,7 +30,14 @@ public class S3StorageConfig {
     @Value("${minio.secret-key}")
     private String secretKey;
 
+    @Value("${minio.public-url}")
+    private String publicUrl;
+
+    @Value("${minio.region}")
+    private String region;
+
     @Bean
+    @Primary
     MinioClient minioClient(){
 
         return MinioClient.builder()
@@ -27,4 +45,44 @@ public class S3StorageConfig {
                 .credentials(accessKey, secretKey)
                 .build();
     }
+
+    // OkHttp allows only 5 concurrent requests per host by default, requests sent at once would wait
+    @Bean
+    @ConditionalOnProperty(name = "application.s3.client", havingValue = "async")
+    MinioAsyncClient minioAsyncClient(@Value("${application.s3.async.max-requests}") int maxRequests) {
+
+        Dispatcher dispatcher = new Dispatcher();
+
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequests);
+
+        return MinioAsyncClient.builder()
+                .endpoint(url)
+                .credentials(accessKey, secretKey)
+                .httpClient(HttpUtils.newDefaultHttpClient(HTTP_TIMEOUT, HTTP_TIMEOUT, HTTP_TIMEOUT)
+                        .newBuilder()
+                        .dispatcher(dispatcher)
+                        .build())
+                .build();
+    }
+
+    @Bean
+    MultipartMinioClient multipartMinioClient() {
+
+        return new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(url)
+                .credentials(accessKey, secretKey)
+                .build());
+    }
+
+    // signs URLs used by clients directly, region is set, otherwise signing would request S3
+    @Bean
+    MinioClient presignedUrlMinioClient() {
+
+        return MinioClient.builder()
+                .endpoint(publicUrl)
+                .region(region)
+                .credentials(accessKey, secretKey)
+                .build();
+    }
 }
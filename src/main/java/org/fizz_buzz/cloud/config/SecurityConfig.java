@@ -1,8 +1,10 @@
 package org.fizz_buzz.cloud.config;
 
+import org.fizz_buzz.cloud.controller.CustomHeaders;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -52,6 +54,10 @@ public class SecurityConfig {
             config.setAllowedOriginPatterns(List.of("*"));
             config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
             config.setAllowedHeaders(List.of("*"));
+            config.setExposedHeaders(List.of(CustomHeaders.NEXT_CURSOR,
+                    HttpHeaders.ETAG,
+                    HttpHeaders.ACCEPT_RANGES,
+                    HttpHeaders.CONTENT_RANGE));
             config.setAllowCredentials(true);
             return config;
         };
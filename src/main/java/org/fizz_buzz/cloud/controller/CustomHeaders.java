@@ -0,0 +1,10 @@
+package org.fizz_buzz.cloud.controller;
+
+public final class CustomHeaders {
+
+    // cursor of the next page, absent on the last page
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    private CustomHeaders() {
+    }
+}
@@ -1,5 +1,6 @@
 package org.fizz_buzz.cloud.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -9,14 +10,17 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import org.fizz_buzz.cloud.dto.MessageDTO;
+import org.fizz_buzz.cloud.dto.ResourceInfoPage;
 import org.fizz_buzz.cloud.dto.response.ResourceInfoResponseDTO;
 import org.fizz_buzz.cloud.security.CustomUserDetails;
 import org.fizz_buzz.cloud.service.S3UserService;
 import org.springframework.beans.propertyeditors.StringTrimmerEditor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,6 +30,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -41,6 +46,7 @@ import java.util.List;
 public class DirectoryController {
 
     private final S3UserService s3UserService;
+    private final ObjectMapper objectMapper;
 
     @InitBinder
     public void initBinder(WebDataBinder binder) {
@@ -50,11 +56,23 @@ public class DirectoryController {
     @Operation(
             summary = "Get directory info",
             description = """
-                    Returns collection of resources containing in directory.""",
-            parameters = @Parameter(
-                    name = "path",
-                    description = "Path where resource must be uploaded"
-            ),
+                    Returns collection of resources containing in directory.
+                    If "limit" is set, collection is returned by pages, cursor of the next page
+                    is passed in "X-Next-Cursor" header.""",
+            parameters = {
+                    @Parameter(
+                            name = "path",
+                            description = "Path where resource must be uploaded"
+                    ),
+                    @Parameter(
+                            name = "cursor",
+                            description = "Cursor of the page, taken from \"X-Next-Cursor\" header of previous page"
+                    ),
+                    @Parameter(
+                            name = "limit",
+                            description = "Maximum number of resources in the page"
+                    )
+            },
             responses = {
                     @ApiResponse(
                             description = "Resource found",
@@ -102,11 +120,108 @@ public class DirectoryController {
             }
     )
     @GetMapping
-    public List<ResourceInfoResponseDTO> getDirectory(@RequestParam(name = "path")
-                                                      String path,
-                                                      @AuthenticationPrincipal CustomUserDetails userDetails) {
+    public ResponseEntity<List<ResourceInfoResponseDTO>> getDirectory(@RequestParam(name = "path")
+                                                                      String path,
+                                                                      @RequestParam(name = "cursor", required = false)
+                                                                      String cursor,
+                                                                      @Valid
+                                                                      @RequestParam(name = "limit", required = false)
+                                                                      @Positive(message = "Parameter \"limit\" must be positive")
+                                                                      Integer limit,
+                                                                      @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        ResourceInfoPage page = s3UserService.getDirectory(userDetails.getId(), path, cursor, limit);
+        var response = ResponseEntity.ok();
+
+        if (page.nextCursor() != null) {
+            response.header(CustomHeaders.NEXT_CURSOR, page.nextCursor());
+        }
+
+        return response.body(page.resources());
+    }
+
+
+    @Operation(
+            summary = "Stream directory info",
+            description = """
+                    Returns resources containing in directory as newline delimited JSON, one resource per line.
+                    Resources are written while they are read from storage, so the first lines are available
+                    before the whole directory is read. To continue interrupted stream pass as "cursor"
+                    "path" and "name" of the last received line joined together, followed by "/"
+                    if its "type" is DIRECTORY, e.g. "docs/" and "report.pdf" give "docs/report.pdf".""",
+            parameters = {
+                    @Parameter(
+                            name = "path",
+                            description = "Path of the directory"
+                    ),
+                    @Parameter(
+                            name = "cursor",
+                            description = "Full path of the resource after which the stream starts"
+                    ),
+                    @Parameter(
+                            name = "limit",
+                            description = "Maximum number of resources in the stream"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            description = "Resource found",
+                            responseCode = "200",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = ResourceInfoResponseDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Validation error or path doesn't exist",
+                            responseCode = "400",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Directory doesn't exist",
+                            responseCode = "404",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDirectory(@RequestParam(name = "path")
+                                                                 String path,
+                                                                 @RequestParam(name = "cursor", required = false)
+                                                                 String cursor,
+                                                                 @Valid
+                                                                 @RequestParam(name = "limit", required = false)
+                                                                 @Positive(message = "Parameter \"limit\" must be positive")
+                                                                 Integer limit,
+                                                                 @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        var resources = s3UserService.streamDirectory(userDetails.getId(), path, cursor, limit);
 
-        return s3UserService.getDirectory(userDetails.getId(), path);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(NdjsonResponseBody.of(resources, objectMapper));
     }
 
 
@@ -1,11 +1,18 @@
 package org.fizz_buzz.cloud.controller;
 
 import org.fizz_buzz.cloud.dto.MessageDTO;
+import org.fizz_buzz.cloud.exception.DirectoryNotExistException;
 import org.fizz_buzz.cloud.exception.EmptyPathException;
+import org.fizz_buzz.cloud.exception.FeatureDisabledException;
 import org.fizz_buzz.cloud.exception.ForbiddenSymbolException;
+import org.fizz_buzz.cloud.exception.InvalidUploadException;
+import org.fizz_buzz.cloud.exception.NestedResourceException;
 import org.fizz_buzz.cloud.exception.NotDirectoryException;
+import org.fizz_buzz.cloud.exception.NotFileException;
 import org.fizz_buzz.cloud.exception.ResourceAlreadyExistsException;
 import org.fizz_buzz.cloud.exception.ResourceNotFound;
+import org.fizz_buzz.cloud.exception.ResourceTypeMismatchException;
+import org.fizz_buzz.cloud.exception.UploadSessionNotFound;
 import org.fizz_buzz.cloud.exception.UserAlreadyExists;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
@@ -109,10 +116,59 @@ public class GlobalExceptionHandler {
         return new MessageDTO(message.toString());
     }
 
+    @ExceptionHandler(NotFileException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public MessageDTO handleNotFileException(NotFileException e) {
+
+        return new MessageDTO(e.getMessage());
+    }
+
+    @ExceptionHandler(FeatureDisabledException.class)
+    @ResponseStatus(HttpStatus.FORBIDDEN)
+    public MessageDTO handleFeatureDisabledException(FeatureDisabledException e) {
+
+        return new MessageDTO(e.getMessage());
+    }
+
     @ExceptionHandler(NotDirectoryException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public MessageDTO handleNotDirectoryException(NotDirectoryException e) {
 
         return new MessageDTO(e.getMessage());
     }
+
+    @ExceptionHandler(NestedResourceException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public MessageDTO handleNestedResourceException(NestedResourceException e) {
+
+        return new MessageDTO(e.getMessage());
+    }
+
+    @ExceptionHandler(ResourceTypeMismatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public MessageDTO handleResourceTypeMismatchException(ResourceTypeMismatchException e) {
+
+        return new MessageDTO(e.getMessage());
+    }
+
+    @ExceptionHandler(DirectoryNotExistException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public MessageDTO handleDirectoryNotExistException(DirectoryNotExistException e) {
+
+        return new MessageDTO(e.getMessage());
+    }
+
+    @ExceptionHandler(UploadSessionNotFound.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public MessageDTO handleUploadSessionNotFound(UploadSessionNotFound e) {
+
+        return new MessageDTO(e.getMessage());
+    }
+
+    @ExceptionHandler(InvalidUploadException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public MessageDTO handleInvalidUploadException(InvalidUploadException e) {
+
+        return new MessageDTO(e.getMessage());
+    }
 }
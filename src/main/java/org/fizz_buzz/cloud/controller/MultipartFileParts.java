@@ -0,0 +1,74 @@
+package org.fizz_buzz.cloud.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.fizz_buzz.cloud.model.FilePart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// nothing is buffered, stream of the previous part becomes unreadable once the next one is requested
+final class MultipartFileParts implements Iterator<FilePart> {
+
+    private final String fieldName;
+    private final FileItemInputIterator items;
+    private FileItemInput next;
+
+    private MultipartFileParts(String fieldName, FileItemInputIterator items) {
+        this.fieldName = fieldName;
+        this.items = items;
+    }
+
+    static MultipartFileParts of(HttpServletRequest request, String fieldName) throws IOException {
+
+        var upload = new JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory>();
+
+        return new MultipartFileParts(fieldName, upload.getItemIterator(request));
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        try {
+
+            while (next == null && items.hasNext()) {
+
+                FileItemInput item = items.next();
+
+                if (!item.isFormField() && fieldName.equals(item.getFieldName()) && item.getName() != null) {
+                    next = item;
+                }
+            }
+
+            return next != null;
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public FilePart next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+
+            FilePart part = new FilePart(next.getName(), next.getContentType(), next.getInputStream(), -1);
+            next = null;
+
+            return part;
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+        }
+    }
+}
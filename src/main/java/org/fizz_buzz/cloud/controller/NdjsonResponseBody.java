@@ -0,0 +1,39 @@
+package org.fizz_buzz.cloud.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+final class NdjsonResponseBody {
+
+    private static final int FLUSH_INTERVAL = 100;
+
+    private NdjsonResponseBody() {
+    }
+
+    static StreamingResponseBody of(Stream<?> elements, ObjectMapper objectMapper) {
+
+        return outputStream -> {
+
+            try (elements) {
+
+                Iterator<?> iterator = elements.iterator();
+                long written = 0;
+
+                while (iterator.hasNext()) {
+
+                    outputStream.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    outputStream.write('\n');
+                    written++;
+
+                    // the first element is flushed immediately, so client can start rendering right away
+                    if (written == 1 || written % FLUSH_INTERVAL == 0) {
+                        outputStream.flush();
+                    }
+                }
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package org.fizz_buzz.cloud.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -7,37 +8,51 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
+import org.fizz_buzz.cloud.dto.ArchiveCompression;
 import org.fizz_buzz.cloud.dto.MessageDTO;
+import org.fizz_buzz.cloud.dto.ResourceInfoPage;
+import org.fizz_buzz.cloud.dto.response.PresignedUrlResponseDTO;
 import org.fizz_buzz.cloud.dto.response.ResourceInfoResponseDTO;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
 import org.fizz_buzz.cloud.security.CustomUserDetails;
 import org.fizz_buzz.cloud.service.S3UserService;
 import org.springframework.beans.propertyeditors.StringTrimmerEditor;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Tag(
         name = "Resource management",
@@ -49,6 +64,7 @@ import java.util.List;
 public class ResourceController {
 
     private final S3UserService s3UserService;
+    private final ObjectMapper objectMapper;
 
 
     @InitBinder
@@ -175,11 +191,22 @@ public class ResourceController {
 
     @Operation(
             summary = "Download resource",
-            description = "Download resource to client. If resource is directory then download file is zip-archive.",
-            parameters = @Parameter(
-                    name = "path",
-                    description = "Path must point to concrete resource"
-            ),
+            description = """
+                    Download resource to client. If resource is directory then download file is zip-archive.
+                    File download supports single "Range" (with "If-Range") and conditional requests
+                    by "If-None-Match" and "If-Modified-Since".""",
+            parameters = {
+                    @Parameter(
+                            name = "path",
+                            description = "Path must point to concrete resource"
+                    ),
+                    @Parameter(
+                            name = "compression",
+                            description = """
+                                    Compression of zip-archive entries. AUTO stores already compressed files
+                                    (images, video, archives) as is and compresses the others."""
+                    )
+            },
             responses = {
                     @ApiResponse(
                             description = "Download success",
@@ -188,6 +215,17 @@ public class ResourceController {
                                     mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE
                             )
                     ),
+                    @ApiResponse(
+                            description = "Requested range of the file",
+                            responseCode = "206",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "File isn't modified since the version client has",
+                            responseCode = "304"
+                    ),
                     @ApiResponse(
                             description = "Validation error or path doesn't exist",
                             responseCode = "400",
@@ -212,6 +250,10 @@ public class ResourceController {
                                     schema = @Schema(implementation = MessageDTO.class)
                             )
                     ),
+                    @ApiResponse(
+                            description = "Requested range is out of the file",
+                            responseCode = "416"
+                    ),
                     @ApiResponse(
                             description = "Internal server error",
                             responseCode = "500",
@@ -226,10 +268,12 @@ public class ResourceController {
     public ResponseEntity<StreamingResponseBody> downloadResource(@Valid
                                                                   @RequestParam(name = "path")
                                                                   @NotBlank(message = "Parameter \"path\" must not be blank") String path,
+                                                                  @RequestParam(name = "compression", defaultValue = "AUTO")
+                                                                  ArchiveCompression compression,
+                                                                  @Parameter(hidden = true)
+                                                                  @RequestHeader HttpHeaders requestHeaders,
                                                                   @AuthenticationPrincipal CustomUserDetails userDetails) throws UnsupportedEncodingException {
 
-        StreamingResponseBody streamingResponseBody = s3UserService.downloadResource(userDetails.getId(), path);
-
         Path entirePath = Paths.get(path);
         String fileName;
 
@@ -241,12 +285,271 @@ public class ResourceController {
 
         // needed to support other languages, not only English
         String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20");
+        String contentDisposition = "attachment; filename*=UTF-8''%s".formatted(encodedFileName);
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''%s".formatted(encodedFileName))
-                .body(streamingResponseBody);
+        // archive is built on the fly, so it can be neither cached nor requested by ranges
+        if (path.endsWith("/")) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                    .body(s3UserService.downloadResource(userDetails.getId(), path, compression));
+        }
+
+        ResourceMetadata file = s3UserService.getFileMetadata(userDetails.getId(), path);
+        // directories created by this application have no ETag, its absence is never sent or matched
+        String etag = file.etag() == null ? null : "\"%s\"".formatted(file.etag());
+
+        if (isNotModified(requestHeaders, etag, file.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .lastModified(file.lastModified())
+                    .build();
+        }
+
+        HttpRange range = getRequestedRange(requestHeaders, etag);
+
+        if (range == null) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .eTag(etag)
+                    .lastModified(file.lastModified())
+                    .contentLength(file.size())
+                    .body(s3UserService.downloadFile(userDetails.getId(), path));
+        }
+
+        long rangeStart = range.getRangeStart(file.size());
+        long rangeEnd = range.getRangeEnd(file.size());
+
+        if (rangeStart >= file.size() || rangeEnd < rangeStart) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */%d".formatted(file.size()))
+                    .build();
+        }
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_RANGE, "bytes %d-%d/%d".formatted(rangeStart, rangeEnd, file.size()))
+                .eTag(etag)
+                .lastModified(file.lastModified())
+                .contentLength(rangeEnd - rangeStart + 1)
+                .body(s3UserService.downloadFile(userDetails.getId(),
+                        path,
+                        rangeStart,
+                        rangeEnd - rangeStart + 1));
+    }
+
+    @Operation(
+            summary = "Get download URL",
+            description = """
+                    Returns short-lived URL to download file directly from storage, bypassing the application.""",
+            parameters = @Parameter(
+                    name = "path",
+                    description = "Path must point to concrete file"
+            ),
+            responses = {
+                    @ApiResponse(
+                            description = "URL issued",
+                            responseCode = "200",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = PresignedUrlResponseDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Validation error or path doesn't exist",
+                            responseCode = "400",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Presigned URLs mode is disabled",
+                            responseCode = "403",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Resource not found",
+                            responseCode = "404",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping("/download-url")
+    public PresignedUrlResponseDTO getDownloadUrl(@Valid
+                                                  @RequestParam(name = "path")
+                                                  @NotBlank(message = "Parameter \"path\" must not be blank") String path,
+                                                  @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        return s3UserService.getPresignedDownloadUrl(userDetails.getId(), path);
+    }
+
+
+    @Operation(
+            summary = "Get upload URL",
+            description = """
+                    Returns short-lived URL to upload file directly to storage by HTTP PUT, bypassing the application.
+                    Parent directory must exist. The URL doesn't prevent overwriting a file created after it was issued,
+                    send "If-None-Match: *" header to make storage reject the upload with 412 in that case.
+                    Confirm the finished upload to make the file visible in listings and search at once.""",
+            parameters = @Parameter(
+                    name = "path",
+                    description = "Path of the new file"
+            ),
+            responses = {
+                    @ApiResponse(
+                            description = "URL issued",
+                            responseCode = "200",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = PresignedUrlResponseDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Validation error or path doesn't exist",
+                            responseCode = "400",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Presigned URLs mode is disabled",
+                            responseCode = "403",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Resource already existed",
+                            responseCode = "409",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping("/upload-url")
+    public PresignedUrlResponseDTO getUploadUrl(@Valid
+                                                @RequestParam(name = "path")
+                                                @NotBlank(message = "Parameter \"path\" must not be blank") String path,
+                                                @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        return s3UserService.getPresignedUploadUrl(userDetails.getId(), path);
     }
 
+
+    @Operation(
+            summary = "Confirm upload by URL",
+            description = """
+                    Makes file uploaded by URL visible at once. Without the confirmation the file appears in listings
+                    and search only after storage notifies the application or after the next reconciliation.""",
+            parameters = @Parameter(
+                    name = "path",
+                    description = "Path of the uploaded file"
+            ),
+            responses = {
+                    @ApiResponse(
+                            description = "Upload confirmed",
+                            responseCode = "200",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ResourceInfoResponseDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Validation error",
+                            responseCode = "400",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Presigned URLs mode is disabled",
+                            responseCode = "403",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "File wasn't uploaded",
+                            responseCode = "404",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @PostMapping("/upload-url/confirm")
+    public ResourceInfoResponseDTO confirmUpload(@Valid
+                                                 @RequestParam(name = "path")
+                                                 @NotBlank(message = "Parameter \"path\" must not be blank") String path,
+                                                 @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        return s3UserService.confirmPresignedUpload(userDetails.getId(), path);
+    }
+
+
     @Operation(
             summary = "Move resource",
             description = """
@@ -314,26 +617,121 @@ public class ResourceController {
             }
     )
     @GetMapping("/move")
-    public ResourceInfoResponseDTO move(@Valid
-                                        @RequestParam(name = "from")
-                                        @NotBlank(message = "Parameter \"from\" must not be blank") String from,
-                                        @Valid
-                                        @RequestParam(name = "to")
-                                        @NotBlank(message = "Parameter \"to\" must not be blank") String to,
-                                        @AuthenticationPrincipal CustomUserDetails userDetails) {
-
-        return s3UserService.moveResource(userDetails.getId(), from, to);
+    public CompletableFuture<ResourceInfoResponseDTO> move(@Valid
+                                                           @RequestParam(name = "from")
+                                                           @NotBlank(message = "Parameter \"from\" must not be blank") String from,
+                                                           @Valid
+                                                           @RequestParam(name = "to")
+                                                           @NotBlank(message = "Parameter \"to\" must not be blank") String to,
+                                                           @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        return s3UserService.moveResourceAsync(userDetails.getId(), from, to);
+    }
+
+
+    @Operation(
+            summary = "Copy resource",
+            description = """
+                    Copies file or directory with all its content to the new path.
+                    Data is copied inside storage, without downloading and uploading it again.""",
+            parameters = {
+                    @Parameter(
+                            name = "from",
+                            description = "Path of the resource to copy"
+                    ),
+                    @Parameter(
+                            name = "to",
+                            description = "Path of the copy"
+                    ),
+            },
+            responses = {
+                    @ApiResponse(
+                            description = "Successful resource copy",
+                            responseCode = "201",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ResourceInfoResponseDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Validation error or path doesn't exist",
+                            responseCode = "400",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Resource not found",
+                            responseCode = "404",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Resource at new path already exist",
+                            responseCode = "409",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @PostMapping("/copy")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<ResourceInfoResponseDTO> copy(@Valid
+                                                           @RequestParam(name = "from")
+                                                           @NotBlank(message = "Parameter \"from\" must not be blank") String from,
+                                                           @Valid
+                                                           @RequestParam(name = "to")
+                                                           @NotBlank(message = "Parameter \"to\" must not be blank") String to,
+                                                           @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        return s3UserService.copyResourceAsync(userDetails.getId(), from, to);
     }
 
 
     @Operation(
             summary = "Search resource",
             description = """
-                    Case insensitive search by part or complete resource name.""",
-            parameters = @Parameter(
-                    name = "query",
-                    description = "Part or complete resource name"
-            ),
+                    Case insensitive search by part or complete resource name.
+                    With metadata index enabled, exact matches are returned first, then names starting with
+                    the query, then the rest, and queries shorter than 3 characters match only names starting
+                    with them.
+                    If "limit" is set, found resources are returned by pages, cursor of the next page
+                    is passed in "X-Next-Cursor" header.""",
+            parameters = {
+                    @Parameter(
+                            name = "query",
+                            description = "Part or complete resource name"
+                    ),
+                    @Parameter(
+                            name = "cursor",
+                            description = "Cursor of the page, taken from \"X-Next-Cursor\" header of previous page"
+                    ),
+                    @Parameter(
+                            name = "limit",
+                            description = "Maximum number of resources in the page"
+                    )
+            },
             responses = {
                     @ApiResponse(
                             description = "Resource found",
@@ -372,20 +770,116 @@ public class ResourceController {
             }
     )
     @GetMapping("/search")
-    public List<ResourceInfoResponseDTO> search(@Valid
-                                                @RequestParam(name = "query")
-                                                @NotBlank(message = "Parameter \"query\" must not be blank")
-                                                String query,
-                                                @AuthenticationPrincipal CustomUserDetails userDetails) {
+    public ResponseEntity<List<ResourceInfoResponseDTO>> search(@Valid
+                                                                @RequestParam(name = "query")
+                                                                @NotBlank(message = "Parameter \"query\" must not be blank")
+                                                                String query,
+                                                                @RequestParam(name = "cursor", required = false)
+                                                                String cursor,
+                                                                @Valid
+                                                                @RequestParam(name = "limit", required = false)
+                                                                @Positive(message = "Parameter \"limit\" must be positive")
+                                                                Integer limit,
+                                                                @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        ResourceInfoPage page = s3UserService.searchResource(userDetails.getId(), query, cursor, limit);
+        var response = ResponseEntity.ok();
+
+        if (page.nextCursor() != null) {
+            response.header(CustomHeaders.NEXT_CURSOR, page.nextCursor());
+        }
+
+        return response.body(page.resources());
+    }
+
+
+    @Operation(
+            summary = "Stream search result",
+            description = """
+                    Case insensitive search by part or complete resource name.
+                    With metadata index enabled, exact matches are returned first, then names starting with
+                    the query, then the rest, and queries shorter than 3 characters match only names starting
+                    with them.
+                    Found resources are returned as newline delimited JSON, one resource per line, and are written
+                    while the search goes on. To continue interrupted stream pass as "cursor"
+                    "path" and "name" of the last received line joined together, followed by "/"
+                    if its "type" is DIRECTORY, e.g. "docs/" and "report.pdf" give "docs/report.pdf".""",
+            parameters = {
+                    @Parameter(
+                            name = "query",
+                            description = "Part or complete resource name"
+                    ),
+                    @Parameter(
+                            name = "cursor",
+                            description = "Full path of the resource after which the search starts"
+                    ),
+                    @Parameter(
+                            name = "limit",
+                            description = "Maximum number of resources in the stream"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            description = "Resource found",
+                            responseCode = "200",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = ResourceInfoResponseDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Validation error or path doesn't exist",
+                            responseCode = "400",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearch(@Valid
+                                                              @RequestParam(name = "query")
+                                                              @NotBlank(message = "Parameter \"query\" must not be blank")
+                                                              String query,
+                                                              @RequestParam(name = "cursor", required = false)
+                                                              String cursor,
+                                                              @Valid
+                                                              @RequestParam(name = "limit", required = false)
+                                                              @Positive(message = "Parameter \"limit\" must be positive")
+                                                              Integer limit,
+                                                              @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        var resources = s3UserService.streamSearchResult(userDetails.getId(), query, cursor, limit);
 
-        return s3UserService.searchResource(userDetails.getId(), query);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(NdjsonResponseBody.of(resources, objectMapper));
     }
 
 
     @Operation(
             summary = "Upload resource",
             description = """
-                    Either file or directory can be uploaded to the system.""",
+                    Either file or directory can be uploaded to the system.
+                    Files are uploaded in parallel. If some of them failed, the rest are still uploaded,
+                    and failed ones are marked with "error" in the result.""",
             parameters = {
                     @Parameter(
                             name = "path",
@@ -412,6 +906,16 @@ public class ResourceController {
                                     )
                             )
                     ),
+                    @ApiResponse(
+                            description = "Some files failed to upload",
+                            responseCode = "207",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    array = @ArraySchema(
+                                            schema = @Schema(implementation = ResourceInfoResponseDTO.class)
+                                    )
+                            )
+                    ),
                     @ApiResponse(
                             description = "Validation error or path doesn't exist",
                             responseCode = "400",
@@ -448,11 +952,138 @@ public class ResourceController {
             }
     )
     @PostMapping(consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
+    public ResponseEntity<List<ResourceInfoResponseDTO>> upload(@RequestParam(name = "path") String path,
+                                                                @RequestParam(name = "object") MultipartFile[] files,
+                                                                @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        List<ResourceInfoResponseDTO> uploaded = s3UserService.upload(userDetails.getId(), path, files);
+        boolean failed = uploaded.stream().anyMatch(resource -> resource.error() != null);
+
+        return ResponseEntity.status(failed ? HttpStatus.MULTI_STATUS : HttpStatus.CREATED).body(uploaded);
+    }
+
+
+    @Operation(
+            summary = "Upload resource as a stream",
+            description = """
+                    Works like plain upload, but multipart body is parsed while it's received and every file is piped
+                    straight into storage, so files of any size can be uploaded. Files are written in order of parts,
+                    therefore files preceding the failed one stay uploaded.""",
+            parameters = {
+                    @Parameter(
+                            name = "path",
+                            description = "Path where resource must be uploaded, passed in query string"
+                    ),
+                    @Parameter(
+                            name = "object",
+                            description = "Multipart file or files",
+                            array = @ArraySchema(
+                                    schema = @Schema(
+                                            implementation = MultipartFile.class
+                                    )
+                            )
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            description = "Resource uploaded",
+                            responseCode = "201",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    array = @ArraySchema(
+                                            schema = @Schema(implementation = ResourceInfoResponseDTO.class)
+                                    )
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Validation error or path doesn't exist",
+                            responseCode = "400",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Resource already existed",
+                            responseCode = "409",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @PostMapping(value = "/stream", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
     @ResponseStatus(HttpStatus.CREATED)
-    public List<ResourceInfoResponseDTO> upload(@RequestParam(name = "path") String path,
-                                                @RequestParam(name = "object") MultipartFile[] files,
-                                                @AuthenticationPrincipal CustomUserDetails userDetails) {
+    public List<ResourceInfoResponseDTO> uploadStream(HttpServletRequest request,
+                                                      @AuthenticationPrincipal CustomUserDetails userDetails)
+            throws IOException, MissingServletRequestParameterException {
+
+        // request parameters aren't touched, since reading them makes servlet container parse and buffer the whole body
+        String path = UriComponentsBuilder.newInstance()
+                .query(request.getQueryString())
+                .build()
+                .getQueryParams()
+                .getFirst("path");
+
+        if (path == null) {
+            throw new MissingServletRequestParameterException("path", "String");
+        }
+
+        return s3UserService.upload(userDetails.getId(),
+                URLDecoder.decode(path, StandardCharsets.UTF_8).trim(),
+                MultipartFileParts.of(request, "object"));
+    }
+
+    // If-None-Match takes precedence over If-Modified-Since, as RFC 9110 requires
+    private boolean isNotModified(HttpHeaders requestHeaders, String etag, ZonedDateTime lastModified) {
+
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
 
-        return s3UserService.upload(userDetails.getId(), path, files);
+        if (!ifNoneMatch.isEmpty()) {
+            return ifNoneMatch.stream()
+                    .anyMatch(tag -> tag.equals("*") || etag != null && tag.replaceFirst("^W/", "").equals(etag));
+        }
+
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+
+        // HTTP dates have precision of seconds
+        return ifModifiedSince != -1 && lastModified.toEpochSecond() * 1000 <= ifModifiedSince;
+    }
+
+    // null means the whole file, it's sent for invalid, multiple or outdated (If-Range) ranges
+    private HttpRange getRequestedRange(HttpHeaders requestHeaders, String etag) {
+
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+
+        if (ifRange != null && (etag == null || !ifRange.equals(etag))) {
+            return null;
+        }
+
+        try {
+
+            List<HttpRange> ranges = requestHeaders.getRange();
+
+            return ranges.size() == 1 ? ranges.getFirst() : null;
+        } catch (IllegalArgumentException e) {
+
+            return null;
+        }
     }
 }
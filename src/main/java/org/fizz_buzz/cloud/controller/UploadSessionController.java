@@ -0,0 +1,373 @@
+package org.fizz_buzz.cloud.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.RequiredArgsConstructor;
+import org.fizz_buzz.cloud.dto.MessageDTO;
+import org.fizz_buzz.cloud.dto.response.ResourceInfoResponseDTO;
+import org.fizz_buzz.cloud.dto.response.UploadSessionResponseDTO;
+import org.fizz_buzz.cloud.dto.response.UploadedPartResponseDTO;
+import org.fizz_buzz.cloud.security.CustomUserDetails;
+import org.fizz_buzz.cloud.service.ResumableUploadService;
+import org.springframework.beans.propertyeditors.StringTrimmerEditor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@Tag(
+        name = "Resumable upload",
+        description = """
+                Upload of a single file by parts. Parts can be sent in parallel and in any order,
+                a failed part is simply sent again.
+                """
+)
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/resource/uploads")
+public class UploadSessionController {
+
+    private final ResumableUploadService resumableUploadService;
+
+    @InitBinder
+    public void initBinder(WebDataBinder binder) {
+        binder.registerCustomEditor(String.class, new StringTrimmerEditor(false));
+    }
+
+    @Operation(
+            summary = "Start upload",
+            description = """
+                    Starts upload session of a new file. Response contains size of parts the file must be split into.""",
+            parameters = {
+                    @Parameter(
+                            name = "path",
+                            description = "Path of the new file, parent directory must exist"
+                    ),
+                    @Parameter(
+                            name = "size",
+                            description = "Size of the whole file in bytes"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            description = "Upload session started",
+                            responseCode = "201",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = UploadSessionResponseDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Validation error or path doesn't exist",
+                            responseCode = "400",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Resource or upload of it already existed",
+                            responseCode = "409",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public UploadSessionResponseDTO initiate(@Valid
+                                             @RequestParam(name = "path")
+                                             @NotBlank(message = "Parameter \"path\" must not be blank") String path,
+                                             @RequestParam(name = "size")
+                                             @Positive(message = "Parameter \"size\" must be positive") long size,
+                                             @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        return resumableUploadService.initiate(userDetails.getId(), path, size);
+    }
+
+
+    @Operation(
+            summary = "Get upload status",
+            description = """
+                    Returns upload session with parts already received,
+                    so upload can be resumed by sending only the missing ones.""",
+            parameters = {
+                    @Parameter(
+                            name = "id",
+                            description = "Upload session identifier"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            description = "Upload session",
+                            responseCode = "200",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = UploadSessionResponseDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Upload session not found or expired",
+                            responseCode = "404",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping("/{id}")
+    public UploadSessionResponseDTO getStatus(@PathVariable(name = "id") UUID id,
+                                              @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        return resumableUploadService.getStatus(userDetails.getId(), id);
+    }
+
+
+    @Operation(
+            summary = "Upload part",
+            description = """
+                    Part is sent as raw request body with Content-Length. Offset must be a multiple of part size,
+                    and every part except the last one must be exactly part size long.
+                    Sending the same part again replaces it.""",
+            parameters = {
+                    @Parameter(
+                            name = "id",
+                            description = "Upload session identifier"
+                    ),
+                    @Parameter(
+                            name = "offset",
+                            description = "Offset of the part in the file"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            description = "Part uploaded",
+                            responseCode = "200",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = UploadedPartResponseDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Wrong offset or size of the part",
+                            responseCode = "400",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Upload session not found or expired",
+                            responseCode = "404",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public UploadedPartResponseDTO uploadPart(@PathVariable(name = "id") UUID id,
+                                              @Valid
+                                              @RequestParam(name = "offset")
+                                              @PositiveOrZero(message = "Parameter \"offset\" must not be negative") long offset,
+                                              HttpServletRequest request,
+                                              @AuthenticationPrincipal CustomUserDetails userDetails) throws IOException {
+
+        return resumableUploadService.uploadPart(userDetails.getId(), id, offset, request.getContentLengthLong(),
+                request.getInputStream());
+    }
+
+
+    @Operation(
+            summary = "Complete upload",
+            description = """
+                    Assembles the file from received parts. All parts must be uploaded.""",
+            parameters = {
+                    @Parameter(
+                            name = "id",
+                            description = "Upload session identifier"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            description = "File created",
+                            responseCode = "201",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ResourceInfoResponseDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Some parts are missing or parent directory was deleted",
+                            responseCode = "400",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Upload session not found or expired",
+                            responseCode = "404",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Resource already existed",
+                            responseCode = "409",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @PostMapping("/{id}/complete")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ResourceInfoResponseDTO complete(@PathVariable(name = "id") UUID id,
+                                            @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        return resumableUploadService.complete(userDetails.getId(), id);
+    }
+
+
+    @Operation(
+            summary = "Abort upload",
+            description = """
+                    Stops upload session and discards received parts.""",
+            parameters = {
+                    @Parameter(
+                            name = "id",
+                            description = "Upload session identifier"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            description = "Upload aborted",
+                            responseCode = "204"
+                    ),
+                    @ApiResponse(
+                            description = "Unauthorized user",
+                            responseCode = "401",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Upload session not found or expired",
+                            responseCode = "404",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            description = "Internal server error",
+                            responseCode = "500",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = MessageDTO.class)
+                            )
+                    )
+            }
+    )
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void abort(@PathVariable(name = "id") UUID id,
+                      @AuthenticationPrincipal CustomUserDetails userDetails) {
+
+        resumableUploadService.abort(userDetails.getId(), id);
+    }
+}
@@ -0,0 +1,9 @@
+package org.fizz_buzz.cloud.dto;
+
+public enum ArchiveCompression {
+
+    // already compressed files (images, video, archives, etc.) are stored, others are compressed
+    AUTO,
+    STORE,
+    DEFLATE
+}
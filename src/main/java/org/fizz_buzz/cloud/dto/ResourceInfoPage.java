@@ -0,0 +1,9 @@
+package org.fizz_buzz.cloud.dto;
+
+import org.fizz_buzz.cloud.dto.response.ResourceInfoResponseDTO;
+
+import java.util.List;
+
+// nextCursor is null if there are no more resources
+public record ResourceInfoPage(List<ResourceInfoResponseDTO> resources, String nextCursor) {
+}
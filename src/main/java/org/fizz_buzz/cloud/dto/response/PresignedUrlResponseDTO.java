@@ -0,0 +1,6 @@
+package org.fizz_buzz.cloud.dto.response;
+
+import java.time.Instant;
+
+public record PresignedUrlResponseDTO(String url, Instant expiresAt) {
+}
@@ -1,13 +1,27 @@
 package org.fizz_buzz.cloud.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import org.fizz_buzz.cloud.dto.ResourceType;
 
+// error is set only for results of batch operations
 @Builder
 public record ResourceInfoResponseDTO(
         String path,
         String name,
         Long size,
-        ResourceType type
+        ResourceType type,
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String error
 ) {
+
+    public ResourceInfoResponseDTO(String path, String name, Long size, ResourceType type) {
+
+        this(path, name, size, type, null);
+    }
+
+    public ResourceInfoResponseDTO withError(String error) {
+
+        return new ResourceInfoResponseDTO(path, name, size, type, error);
+    }
 }
@@ -0,0 +1,13 @@
+package org.fizz_buzz.cloud.dto.response;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record UploadSessionResponseDTO(UUID id,
+                                       String path,
+                                       long size,
+                                       long partSize,
+                                       Instant expiresAt,
+                                       List<UploadedPartResponseDTO> uploadedParts) {
+}
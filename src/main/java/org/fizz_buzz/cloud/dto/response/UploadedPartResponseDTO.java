@@ -0,0 +1,4 @@
+package org.fizz_buzz.cloud.dto.response;
+
+public record UploadedPartResponseDTO(long offset, long size) {
+}
@@ -0,0 +1,213 @@
+package org.fizz_buzz.cloud.event;
+
+import io.minio.CloseableIterator;
+import io.minio.ListenBucketNotificationArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.messages.Event;
+import io.minio.messages.NotificationRecords;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.repository.CachingS3Repository;
+import org.fizz_buzz.cloud.repository.RedisListingCache;
+import org.fizz_buzz.cloud.service.ResourceIndexService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// every node listens on its own, as it has its own memory cache, while shared Redis listings and index
+// are updated only by the node which claims the event first
+// changes made while reconnecting are covered by cache expiry and index reconciliation
+@Slf4j
+@Component
+@PropertySource("classpath:application.properties")
+public class BucketNotificationListener {
+
+    private static final Pattern USER_DIRECTORY = Pattern.compile("^user-(\\d+)-files/");
+    private static final String[] EVENTS = {"s3:ObjectCreated:*", "s3:ObjectRemoved:*"};
+    private static final Duration MAX_RECONNECT_DELAY = Duration.ofSeconds(30);
+    private static final String CLAIM_KEY = "cloud:notification:%s:%s:%s:%s";
+    // longer than any delivery delay between nodes
+    private static final Duration CLAIM_EXPIRY = Duration.ofMinutes(10);
+
+    @Value("${application.default-bucket-name}")
+    private String defaultBucketName;
+
+    @Value("${application.bucket-notifications.enabled}")
+    private boolean enabled;
+
+    private final MinioClient minioClient;
+    private final CachingS3Repository cachingS3Repository;
+    private final RedisListingCache redisListingCache;
+    private final ResourceIndexService resourceIndexService;
+    private final StringRedisTemplate redisTemplate;
+
+    private volatile boolean running;
+    private volatile Thread listenerThread;
+    private volatile CloseableIterator<Result<NotificationRecords>> notifications;
+
+    public BucketNotificationListener(MinioClient minioClient,
+                                      CachingS3Repository cachingS3Repository,
+                                      RedisListingCache redisListingCache,
+                                      ResourceIndexService resourceIndexService,
+                                      StringRedisTemplate redisTemplate) {
+        this.minioClient = minioClient;
+        this.cachingS3Repository = cachingS3Repository;
+        this.redisListingCache = redisListingCache;
+        this.resourceIndexService = resourceIndexService;
+        this.redisTemplate = redisTemplate;
+    }
+
+    // bucket is created by initializer, so listening starts when application is ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        listenerThread = Thread.ofVirtual()
+                .name("bucket-notifications")
+                .start(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+
+        running = false;
+
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+
+        closeNotifications();
+    }
+
+    private void listen() {
+
+        Duration delay = Duration.ofSeconds(1);
+
+        while (running) {
+
+            try {
+
+                notifications = minioClient.listenBucketNotification(ListenBucketNotificationArgs.builder()
+                        .bucket(defaultBucketName)
+                        .prefix("")
+                        .suffix("")
+                        .events(EVENTS)
+                        .build());
+
+                delay = Duration.ofSeconds(1);
+
+                while (running && notifications.hasNext()) {
+
+                    for (Event event : notifications.next().get().events()) {
+                        apply(event);
+                    }
+                }
+            } catch (Exception e) {
+
+                if (!running) {
+                    return;
+                }
+
+                log.warn("Bucket notifications are interrupted, reconnecting in {}", delay, e);
+            } finally {
+
+                closeNotifications();
+            }
+
+            try {
+
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+
+                return;
+            }
+
+            delay = delay.multipliedBy(2).compareTo(MAX_RECONNECT_DELAY) > 0
+                    ? MAX_RECONNECT_DELAY
+                    : delay.multipliedBy(2);
+        }
+    }
+
+    private void apply(Event event) {
+
+        // keys are URL encoded in notifications
+        String path = URLDecoder.decode(event.objectName(), StandardCharsets.UTF_8);
+        boolean removed = event.eventType().toString().startsWith("s3:ObjectRemoved");
+
+        cachingS3Repository.invalidate(event.bucketName(), path);
+
+        if (!claim(event, path)) {
+            return;
+        }
+
+        redisListingCache.invalidate(event.bucketName(), List.of(path));
+
+        Matcher userDirectory = USER_DIRECTORY.matcher(path);
+
+        if (!event.bucketName().equals(defaultBucketName) || !userDirectory.find()) {
+            return;
+        }
+
+        long userId = Long.parseLong(userDirectory.group(1));
+
+        // removal of directory marker doesn't remove objects inside, each of them is reported separately
+        if (removed) {
+            resourceIndexService.applyRemoved(userId, path, event.eventTime());
+        } else {
+            resourceIndexService.applyCreated(userId, new ResourceMetadata(path,
+                    event.objectSize(),
+                    event.etag(),
+                    event.eventTime()));
+        }
+    }
+
+    // sequencer identifies change of the object, if Redis fails every node applies the event, which is safe
+    private boolean claim(Event event, String path) {
+
+        String change = event.sequencer() != null ? event.sequencer() : event.eventTime().toString();
+
+        try {
+
+            return !Boolean.FALSE.equals(redisTemplate.opsForValue().setIfAbsent(CLAIM_KEY.formatted(
+                    event.bucketName(), event.eventType(), path, change), "", CLAIM_EXPIRY));
+        } catch (RuntimeException e) {
+
+            log.debug("Failed to claim notification about {}", path, e);
+
+            return true;
+        }
+    }
+
+    private void closeNotifications() {
+
+        var current = notifications;
+
+        if (current == null) {
+            return;
+        }
+
+        try {
+
+            current.close();
+        } catch (Exception e) {
+
+            log.debug("Failed to close bucket notifications", e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.fizz_buzz.cloud.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.fizz_buzz.cloud.repository.CachingS3Repository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+// delivery isn't guaranteed, a lost message is covered by cache expiry
+@Slf4j
+@Component
+@PropertySource("classpath:application.properties")
+public class ResourcesChangedBus implements MessageListener {
+
+    private final String node = UUID.randomUUID().toString();
+
+    @Value("${application.metadata-cache.invalidation-channel}")
+    private String channel;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final CachingS3Repository cachingS3Repository;
+
+    public ResourcesChangedBus(StringRedisTemplate redisTemplate,
+                               ObjectMapper objectMapper,
+                               CachingS3Repository cachingS3Repository) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.cachingS3Repository = cachingS3Repository;
+    }
+
+    public String getChannel() {
+
+        return channel;
+    }
+
+    @EventListener
+    public void onResourcesChanged(ResourcesChangedEvent event) {
+
+        try {
+
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(
+                    new ResourcesChangedMessage(node, event.bucket(), List.copyOf(event.paths()))));
+        } catch (JsonProcessingException | RuntimeException e) {
+
+            // write is already done, so it isn't failed because of other nodes
+            log.warn("Failed to send change of {} to other nodes", event.paths(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+
+        try {
+
+            var changed = objectMapper.readValue(message.getBody(), ResourcesChangedMessage.class);
+
+            // own changes are already applied by local event
+            if (node.equals(changed.node())) {
+                return;
+            }
+
+            for (String path : changed.paths()) {
+                cachingS3Repository.invalidate(changed.bucket(), path);
+            }
+        } catch (IOException e) {
+
+            log.warn("Failed to read change of resources from other node", e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.fizz_buzz.cloud.event;
+
+import java.util.Collection;
+
+// path ending with '/' is a directory, everything inside it is changed too
+public record ResourcesChangedEvent(String bucket, Collection<String> paths) {
+}
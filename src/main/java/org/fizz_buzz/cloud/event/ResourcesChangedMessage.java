@@ -0,0 +1,7 @@
+package org.fizz_buzz.cloud.event;
+
+import java.util.List;
+
+// node is the id of the sender, so it can skip its own messages
+public record ResourcesChangedMessage(String node, String bucket, List<String> paths) {
+}
@@ -0,0 +1,27 @@
+package org.fizz_buzz.cloud.exception;
+
+import lombok.Getter;
+import org.fizz_buzz.cloud.concurrent.BulkOperationFailure;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+public class BulkOperationException extends RuntimeException {
+
+    private static final String MESSAGE = "Operation failed for %d object(s): %s";
+    private static final int MAX_LISTED_FAILURES = 10;
+
+    private final List<? extends BulkOperationFailure<?>> failures;
+
+    public BulkOperationException(List<? extends BulkOperationFailure<?>> failures) {
+
+        super(MESSAGE.formatted(failures.size(), failures.stream()
+                        .limit(MAX_LISTED_FAILURES)
+                        .map(failure -> String.valueOf(failure.item()))
+                        .collect(Collectors.joining(", "))),
+                failures.getFirst().cause());
+
+        this.failures = failures;
+    }
+}
@@ -0,0 +1,11 @@
+package org.fizz_buzz.cloud.exception;
+
+public class FeatureDisabledException extends RuntimeException {
+
+    private static final String MESSAGE = "%s is disabled";
+
+    public FeatureDisabledException(String feature) {
+
+        super(MESSAGE.formatted(feature));
+    }
+}
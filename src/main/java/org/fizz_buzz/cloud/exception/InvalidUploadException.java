@@ -0,0 +1,9 @@
+package org.fizz_buzz.cloud.exception;
+
+public class InvalidUploadException extends RuntimeException {
+
+    public InvalidUploadException(String message) {
+
+        super(message);
+    }
+}
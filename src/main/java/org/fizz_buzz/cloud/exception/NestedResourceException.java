@@ -0,0 +1,11 @@
+package org.fizz_buzz.cloud.exception;
+
+public class NestedResourceException extends RuntimeException {
+
+    private static final String MESSAGE = "Directory \"%s\" can't be moved or copied into itself";
+
+    public NestedResourceException(String path) {
+
+        super(MESSAGE.formatted(path));
+    }
+}
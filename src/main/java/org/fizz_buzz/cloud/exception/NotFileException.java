@@ -0,0 +1,11 @@
+package org.fizz_buzz.cloud.exception;
+
+public class NotFileException extends RuntimeException {
+
+    private static final String MESSAGE = "\"%s\" not a file";
+
+    public NotFileException(String path) {
+
+        super(MESSAGE.formatted(path));
+    }
+}
@@ -0,0 +1,11 @@
+package org.fizz_buzz.cloud.exception;
+
+public class ResourceTypeMismatchException extends RuntimeException {
+
+    private static final String MESSAGE = "\"%s\" and \"%s\" must be both files or both directories";
+
+    public ResourceTypeMismatchException(String sourcePath, String targetPath) {
+
+        super(MESSAGE.formatted(sourcePath, targetPath));
+    }
+}
@@ -5,6 +5,10 @@ public class S3RepositoryException extends RuntimeException{
     public S3RepositoryException() {
     }
 
+    public S3RepositoryException(String message) {
+        super(message);
+    }
+
     public S3RepositoryException(Throwable cause) {
         super(cause);
     }
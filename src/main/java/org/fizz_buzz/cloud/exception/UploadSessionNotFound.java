@@ -0,0 +1,13 @@
+package org.fizz_buzz.cloud.exception;
+
+import java.util.UUID;
+
+public class UploadSessionNotFound extends RuntimeException {
+
+    private static final String MESSAGE = "Upload session: \"%s\" not found";
+
+    public UploadSessionNotFound(UUID id) {
+
+        super(MESSAGE.formatted(id));
+    }
+}
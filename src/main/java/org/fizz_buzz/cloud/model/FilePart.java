@@ -0,0 +1,7 @@
+package org.fizz_buzz.cloud.model;
+
+import java.io.InputStream;
+
+// size is -1 when it isn't known in advance
+public record FilePart(String name, String contentType, InputStream dataStream, long size) {
+}
@@ -0,0 +1,72 @@
+package org.fizz_buzz.cloud.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.fizz_buzz.cloud.dto.ResourceType;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+// path is relative to user directory, directories end with '/'
+@Getter
+@Setter
+@Entity
+@Table(name = "resources", indexes = @Index(name = "resources_user_id_parent_path", columnList = "user_id, parent, path"))
+@IdClass(IndexedResource.Key.class)
+@NoArgsConstructor
+public class IndexedResource {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(name = "path", nullable = false, columnDefinition = "TEXT")
+    private String path;
+
+    @Column(name = "parent", nullable = false, columnDefinition = "TEXT")
+    private String parent;
+
+    @Column(name = "name", nullable = false, columnDefinition = "TEXT")
+    private String name;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 16)
+    private ResourceType type;
+
+    @Column(name = "etag", columnDefinition = "TEXT")
+    private String etag;
+
+    @Column(name = "last_modified")
+    private Instant lastModified;
+
+    @Column(name = "indexed_at", nullable = false)
+    private Instant indexedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+        private String path;
+    }
+}
@@ -0,0 +1,6 @@
+package org.fizz_buzz.cloud.model;
+
+import java.time.ZonedDateTime;
+
+public record ResourceMetadata(String path, long size, String etag, ZonedDateTime lastModified) {
+}
@@ -0,0 +1,47 @@
+package org.fizz_buzz.cloud.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// parts themselves are tracked by S3
+@Getter
+@Setter
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "upload_sessions_user_id_path", columnList = "user_id, path", unique = true),
+        @Index(name = "upload_sessions_expires_at", columnList = "expires_at")
+})
+@NoArgsConstructor
+public class UploadSession {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "path", nullable = false, columnDefinition = "TEXT")
+    private String path;
+
+    @Column(name = "upload_id", nullable = false, columnDefinition = "TEXT")
+    private String uploadId;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Column(name = "part_size", nullable = false)
+    private Long partSize;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,4 @@
+package org.fizz_buzz.cloud.model;
+
+public record UploadedPart(int number, String etag, long size) {
+}
@@ -0,0 +1,498 @@
+package org.fizz_buzz.cloud.repository;
+
+import io.minio.ComposeObjectArgs;
+import io.minio.ComposeSource;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteArgs;
+import io.minio.PutObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import jakarta.annotation.PreDestroy;
+import org.fizz_buzz.cloud.concurrent.BulkOperationFailure;
+import org.fizz_buzz.cloud.exception.BulkOperationException;
+import org.fizz_buzz.cloud.exception.ResourceAlreadyExistsException;
+import org.fizz_buzz.cloud.exception.ResourceNotFound;
+import org.fizz_buzz.cloud.exception.S3RepositoryException;
+import org.fizz_buzz.cloud.model.Resource;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.model.UploadedPart;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// requests per object are sent at once and their futures are composed,
+// streaming, listing and upload operations are taken from MinioRepository,
+// listings needed by async operations run in virtual threads, so neither callers nor HTTP callbacks wait for them
+@Repository
+@ConditionalOnProperty(name = "application.s3.client", havingValue = "async")
+public class AsyncMinioRepository implements S3Repository, AsyncS3Repository {
+
+    private static final Map<String, String> IF_ABSENT = Map.of("If-None-Match", "*");
+
+    @FunctionalInterface
+    private interface AsyncCall<T> {
+
+        CompletableFuture<T> call() throws Exception;
+    }
+
+    private final MinioRepository minioRepository;
+    private final MinioAsyncClient minioAsyncClient;
+    private final ExecutorService listingExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AsyncMinioRepository(MinioRepository minioRepository,
+                                @Qualifier("minioAsyncClient") MinioAsyncClient minioAsyncClient) {
+        this.minioRepository = minioRepository;
+        this.minioAsyncClient = minioAsyncClient;
+    }
+
+    @Override
+    public CompletableFuture<ResourceMetadata> getResourceMetadataByPathAsync(String bucket, String path) {
+
+        return send(() -> minioAsyncClient.statObject(StatObjectArgs.builder()
+                .bucket(bucket)
+                .object(path)
+                .build()))
+                .handle((objectStat, e) -> {
+
+                    if (e == null) {
+                        return new ResourceMetadata(objectStat.object(),
+                                objectStat.size(),
+                                objectStat.etag(),
+                                objectStat.lastModified());
+                    }
+
+                    if (isErrorCode(e, "NoSuchKey")) {
+                        throw new ResourceNotFound(path);
+                    }
+
+                    throw toRepositoryException(e);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isObjectExistsAsync(String bucketName, String path) {
+
+        MinioRepository.isValidPath(path);
+
+        return send(() -> minioAsyncClient.statObject(StatObjectArgs.builder()
+                .bucket(bucketName)
+                .object(path)
+                .build()))
+                .handle((objectStat, e) -> {
+
+                    if (e == null) {
+                        return true;
+                    }
+
+                    if (isErrorCode(e, "NoSuchKey")) {
+                        return false;
+                    }
+
+                    throw toRepositoryException(e);
+                });
+    }
+
+    // answers the same as MinioRepository
+    @Override
+    public CompletableFuture<Set<String>> findExistingPathsAsync(String bucket, Collection<String> paths) {
+
+        paths.forEach(MinioRepository::isValidPath);
+
+        Map<String, List<String>> pathsByParent = paths.stream()
+                .distinct()
+                .collect(Collectors.groupingBy(MinioRepository::parentOf));
+        Set<String> existing = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> checks = new ArrayList<>();
+
+        for (var entry : pathsByParent.entrySet()) {
+
+            if (entry.getKey().isEmpty() || entry.getValue().size() <= MinioRepository.MAX_PATHS_CHECKED_ONE_BY_ONE) {
+
+                for (String path : entry.getValue()) {
+                    checks.add(isPathExistsAsync(bucket, path).thenAccept(exists -> {
+
+                        if (exists) {
+                            existing.add(path);
+                        }
+                    }));
+                }
+            } else {
+
+                checks.add(list(() -> minioRepository.findNamesInRange(bucket, entry.getKey(), entry.getValue()))
+                        .thenAccept(names -> entry.getValue().stream()
+                                .filter(names::contains)
+                                .forEach(existing::add)));
+            }
+        }
+
+        return CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> existing);
+    }
+
+    @Override
+    public CompletableFuture<Void> createDirectoriesAsync(String bucketName, Collection<String> paths) {
+
+        Set<String> directories = new TreeSet<>();
+
+        for (String path : paths) {
+
+            for (int i = 0; i < path.length(); i++) {
+                if (path.charAt(i) == '/') {
+                    directories.add(path.substring(0, i + 1));
+                }
+            }
+
+            directories.add(path);
+        }
+
+        // directory created concurrently by another request is fine here
+        return findExistingPathsAsync(bucketName, directories)
+                .thenCompose(existing -> CompletableFuture.allOf(directories.stream()
+                        .filter(directory -> !existing.contains(directory))
+                        .map(directory -> putDirectoryMarkerAsync(bucketName, directory))
+                        .toArray(CompletableFuture[]::new)));
+    }
+
+    @Override
+    public CompletableFuture<Void> copyResourceAsync(String bucketName, String sourcePath, String targetPath) {
+
+        MinioRepository.isValidPath(sourcePath);
+        MinioRepository.isValidPath(targetPath);
+
+        if (!sourcePath.endsWith("/")) {
+
+            return getResourceMetadataByPathAsync(bucketName, sourcePath)
+                    .thenCompose(resource -> copyObjectAsync(bucketName, sourcePath, targetPath, resource.size()));
+        }
+
+        // listing is read completely before copying, so new objects can't get into it
+        return list(() -> minioRepository.findAllByPrefix(bucketName, sourcePath, true))
+                .thenCompose(resources -> copyAllAsync(bucketName, sourcePath, targetPath, resources));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        listingExecutor.shutdownNow();
+    }
+
+    @Override
+    public void createBucket(String bucketName) {
+
+        minioRepository.createBucket(bucketName);
+    }
+
+    @Override
+    public void deleteBucket(String bucketName) {
+
+        minioRepository.deleteBucket(bucketName);
+    }
+
+    @Override
+    public boolean isBucketExists(String bucketName) {
+
+        return minioRepository.isBucketExists(bucketName);
+    }
+
+    // objects are removed by batches of 1000 keys, so there are few requests to compose
+    @Override
+    public void deleteResource(String bucketName, String path) {
+
+        minioRepository.deleteResource(bucketName, path);
+    }
+
+    @Override
+    public List<String> findAllNamesByPrefix(String bucket, String prefix, boolean recursive) {
+
+        return minioRepository.findAllNamesByPrefix(bucket, prefix, recursive);
+    }
+
+    @Override
+    public List<ResourceMetadata> findAllByPrefix(String bucket, String prefix, boolean recursive) {
+
+        return minioRepository.findAllByPrefix(bucket, prefix, recursive);
+    }
+
+    @Override
+    public Stream<ResourceMetadata> streamByPrefix(String bucket, String prefix, boolean recursive, String startAfter) {
+
+        return minioRepository.streamByPrefix(bucket, prefix, recursive, startAfter);
+    }
+
+    @Override
+    public Resource getResourceByPath(String bucket, String path) {
+
+        return minioRepository.getResourceByPath(bucket, path);
+    }
+
+    @Override
+    public Resource getResourceByPath(String bucket, String path, long offset, long length) {
+
+        return minioRepository.getResourceByPath(bucket, path, offset, length);
+    }
+
+    @Override
+    public ResourceMetadata getResourceMetadataByPath(String bucket, String path) {
+
+        return await(getResourceMetadataByPathAsync(bucket, path));
+    }
+
+    @Override
+    public void saveResource(String bucket, String path, InputStream dataStream, long size, String contentType) {
+
+        minioRepository.saveResource(bucket, path, dataStream, size, contentType);
+    }
+
+    @Override
+    public void copyResource(String bucketName, String sourcePath, String targetPath) {
+
+        await(copyResourceAsync(bucketName, sourcePath, targetPath));
+    }
+
+    @Override
+    public void createDirectory(String bucketName, String path) {
+
+        String parent = MinioRepository.parentOf(path);
+        CompletableFuture<Void> parents = parent.isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : createDirectoriesAsync(bucketName, List.of(parent));
+
+        if (!await(parents.thenCompose(ignored -> putDirectoryMarkerAsync(bucketName, path)))) {
+            throw new ResourceAlreadyExistsException(path);
+        }
+    }
+
+    @Override
+    public void createDirectories(String bucketName, Collection<String> paths) {
+
+        await(createDirectoriesAsync(bucketName, paths));
+    }
+
+    @Override
+    public boolean isObjectExists(String bucketName, String path) {
+
+        return await(isObjectExistsAsync(bucketName, path));
+    }
+
+    @Override
+    public Set<String> findExistingPaths(String bucket, Collection<String> paths) {
+
+        return await(findExistingPathsAsync(bucket, paths));
+    }
+
+    @Override
+    public String getPresignedDownloadUrl(String bucket, String path, Duration expiry) {
+
+        return minioRepository.getPresignedDownloadUrl(bucket, path, expiry);
+    }
+
+    @Override
+    public String getPresignedUploadUrl(String bucket, String path, Duration expiry) {
+
+        return minioRepository.getPresignedUploadUrl(bucket, path, expiry);
+    }
+
+    @Override
+    public String createMultipartUpload(String bucket, String path) {
+
+        return minioRepository.createMultipartUpload(bucket, path);
+    }
+
+    @Override
+    public UploadedPart uploadPart(String bucket, String path, String uploadId, int partNumber,
+                                   InputStream dataStream, long size) {
+
+        return minioRepository.uploadPart(bucket, path, uploadId, partNumber, dataStream, size);
+    }
+
+    @Override
+    public List<UploadedPart> findAllUploadedParts(String bucket, String path, String uploadId) {
+
+        return minioRepository.findAllUploadedParts(bucket, path, uploadId);
+    }
+
+    @Override
+    public void completeMultipartUpload(String bucket, String path, String uploadId, List<UploadedPart> parts) {
+
+        minioRepository.completeMultipartUpload(bucket, path, uploadId, parts);
+    }
+
+    @Override
+    public void abortMultipartUpload(String bucket, String path, String uploadId) {
+
+        minioRepository.abortMultipartUpload(bucket, path, uploadId);
+    }
+
+    // marker is absent only in directories created bypassing this application, so listing is rarely requested
+    private CompletableFuture<Boolean> isPathExistsAsync(String bucket, String path) {
+
+        return isObjectExistsAsync(bucket, path)
+                .thenCompose(exists -> exists || !path.endsWith("/")
+                        ? CompletableFuture.completedFuture(exists)
+                        : list(() -> minioRepository.isPrefixExists(bucket, path)));
+    }
+
+    // failures are collected the same way as by bulk operations of the blocking repository
+    private CompletableFuture<Void> copyAllAsync(String bucketName, String sourcePath, String targetPath,
+                                                 List<ResourceMetadata> resources) {
+
+        List<CompletableFuture<BulkOperationFailure<ResourceMetadata>>> copies = resources.stream()
+                .map(resource -> copyObjectAsync(bucketName,
+                        resource.path(),
+                        targetPath.concat(resource.path().substring(sourcePath.length())),
+                        resource.size())
+                        .handle((ignored, e) -> e == null
+                                ? null
+                                : new BulkOperationFailure<>(resource, toRepositoryException(e))))
+                .toList();
+
+        return CompletableFuture.allOf(copies.toArray(CompletableFuture[]::new))
+                .thenRun(() -> {
+
+                    List<BulkOperationFailure<ResourceMetadata>> failures = copies.stream()
+                            .map(CompletableFuture::join)
+                            .filter(Objects::nonNull)
+                            .toList();
+
+                    if (!failures.isEmpty()) {
+                        throw new BulkOperationException(failures);
+                    }
+                });
+    }
+
+    // listing is done by the blocking client, page by page
+    private <T> CompletableFuture<T> list(Supplier<T> listing) {
+
+        return CompletableFuture.supplyAsync(listing, listingExecutor);
+    }
+
+    // completes with false if the directory already exists
+    private CompletableFuture<Boolean> putDirectoryMarkerAsync(String bucketName, String path) {
+
+        return send(() -> minioAsyncClient.putObject(PutObjectArgs.builder()
+                .bucket(bucketName)
+                .object(path)
+                .headers(IF_ABSENT)
+                .stream(new ByteArrayInputStream(new byte[0]), 0, -1)
+                .build()))
+                .handle((response, e) -> {
+
+                    if (e == null) {
+                        return true;
+                    }
+
+                    if (MinioRepository.isPreconditionFailed(e)) {
+                        return false;
+                    }
+
+                    throw toRepositoryException(e);
+                });
+    }
+
+    // data is copied inside S3, so it doesn't go through application
+    private CompletableFuture<Void> copyObjectAsync(String bucketName, String sourcePath, String targetPath, long size) {
+
+        CopySource source = CopySource.builder()
+                .bucket(bucketName)
+                .object(sourcePath)
+                .build();
+
+        // single CopyObject is limited by 5GB, bigger objects are copied by parts with UploadPartCopy
+        return send(() -> size > ObjectWriteArgs.MAX_PART_SIZE
+                ? minioAsyncClient.composeObject(ComposeObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(targetPath)
+                        .sources(List.of(ComposeSource.builder()
+                                .bucket(bucketName)
+                                .object(sourcePath)
+                                .build()))
+                        .build())
+                : minioAsyncClient.copyObject(CopyObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(targetPath)
+                        .source(source)
+                        .build()))
+                .handle((response, e) -> {
+
+                    if (e == null) {
+                        return null;
+                    }
+
+                    if (isErrorCode(e, "NoSuchKey")) {
+                        throw new ResourceNotFound(sourcePath);
+                    }
+
+                    throw toRepositoryException(e);
+                });
+    }
+
+    // request building and signing may fail before the future is created
+    private static <T> CompletableFuture<T> send(AsyncCall<T> asyncCall) {
+
+        try {
+
+            return asyncCall.call();
+        } catch (Exception e) {
+
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+
+        try {
+
+            return future.join();
+        } catch (CompletionException e) {
+
+            throw toRepositoryException(e);
+        }
+    }
+
+    private static boolean isErrorCode(Throwable e, String code) {
+
+        return unwrap(e) instanceof ErrorResponseException errorResponseException
+                && errorResponseException.errorResponse().code().equals(code);
+    }
+
+    // exceptions of this application are passed as they are, so futures fail like blocking operations
+    private static RuntimeException toRepositoryException(Throwable e) {
+
+        Throwable cause = unwrap(e);
+
+        return cause instanceof RuntimeException runtimeException
+                ? runtimeException
+                : new S3RepositoryException(cause);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+
+        while ((e instanceof ExecutionException || e instanceof CompletionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+
+        return e;
+    }
+}
@@ -0,0 +1,17 @@
+package org.fizz_buzz.cloud.repository;
+
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// futures fail with the same exceptions as blocking operations throw
+public interface AsyncS3Repository {
+
+    CompletableFuture<ResourceMetadata> getResourceMetadataByPathAsync(String bucket, String path);
+    CompletableFuture<Boolean> isObjectExistsAsync(String bucketName, String path);
+    CompletableFuture<Set<String>> findExistingPathsAsync(String bucket, Collection<String> paths);
+    CompletableFuture<Void> createDirectoriesAsync(String bucketName, Collection<String> paths);
+    CompletableFuture<Void> copyResourceAsync(String bucketName, String sourcePath, String targetPath);
+}
@@ -0,0 +1,417 @@
+package org.fizz_buzz.cloud.repository;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.fizz_buzz.cloud.event.ResourcesChangedEvent;
+import org.fizz_buzz.cloud.model.Resource;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.model.UploadedPart;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// keys contain generation of their top level directory, so its change drops all its entries at once
+// listings missed in memory are looked up in RedisListingCache, shared by all nodes
+@Primary
+@Repository
+@PropertySource("classpath:application.properties")
+public class CachingS3Repository implements S3Repository {
+
+    private record Key(String bucket, String path, long generation) {
+    }
+
+    private record TopLevelDirectory(String bucket, String path) {
+    }
+
+    // listing too long to be cached is remembered without resources, so next reads go to S3 at once
+    private record Listing(List<ResourceMetadata> resources) {
+
+        private static final Listing OVERSIZED = new Listing(null);
+    }
+
+    // holds rest of a listing too long to be cached, loader runs in the calling thread
+    private static class Overflow {
+
+        private Stream<ResourceMetadata> resources;
+    }
+
+    private final S3Repository s3Repository;
+    private final RedisListingCache redisListingCache;
+    private final boolean enabled;
+    private final int maxCachedListingSize;
+    private final Cache<Key, ResourceMetadata> metadataCache;
+    private final Cache<Key, Boolean> existenceCache;
+    private final AsyncCache<Key, Listing> listingCache;
+    private final Cache<TopLevelDirectory, Long> generations;
+    private final AtomicLong lastGeneration = new AtomicLong();
+
+    public CachingS3Repository(@Qualifier("minioRepository") S3Repository minioRepository,
+                               ObjectProvider<AsyncMinioRepository> asyncMinioRepository,
+                               @Value("${application.s3.client}") String client,
+                               RedisListingCache redisListingCache,
+                               MeterRegistry meterRegistry,
+                               @Value("${application.metadata-cache.enabled}") boolean enabled,
+                               @Value("${application.metadata-cache.expiry}") Duration expiry,
+                               @Value("${application.metadata-cache.maximum-size}") long maximumSize,
+                               @Value("${application.metadata-cache.max-listing-size}") int maxCachedListingSize) {
+        // storage client is chosen here, as every other bean uses S3 through this one
+        this.s3Repository = switch (client) {
+            case "blocking" -> minioRepository;
+            case "async" -> asyncMinioRepository.getObject();
+            default -> throw new IllegalArgumentException("S3 client must be blocking or async, but was %s"
+                    .formatted(client));
+        };
+        this.redisListingCache = redisListingCache;
+        this.enabled = enabled;
+        this.maxCachedListingSize = maxCachedListingSize;
+
+        this.metadataCache = Caffeine.newBuilder()
+                .expireAfterWrite(expiry)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.existenceCache = Caffeine.newBuilder()
+                .expireAfterWrite(expiry)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        // listings differ in size a lot, so they are bounded by total number of listed resources,
+        // they are loaded outside of the cache, so a slow listing doesn't block other keys
+        this.listingCache = Caffeine.newBuilder()
+                .expireAfterWrite(expiry)
+                .maximumWeight(maximumSize)
+                .<Key, Listing>weigher((key, listing) -> listing.resources() == null
+                        ? 1
+                        : listing.resources().size() + 1)
+                .recordStats()
+                .buildAsync();
+
+        // generation outlives entries written before it, so the initial generation can't reach them when it is
+        // used again
+        this.generations = Caffeine.newBuilder()
+                .expireAfterWrite(expiry.multipliedBy(2))
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, metadataCache, "s3.metadata");
+        CaffeineCacheMetrics.monitor(meterRegistry, existenceCache, "s3.existence");
+        CaffeineCacheMetrics.monitor(meterRegistry, listingCache.synchronous(), "s3.listing");
+    }
+
+    // shared listings are invalidated only by the node which made the change
+    @EventListener
+    public void onResourcesChanged(ResourcesChangedEvent event) {
+
+        for (String path : event.paths()) {
+            invalidate(event.bucket(), path);
+        }
+
+        if (enabled) {
+            redisListingCache.invalidate(event.bucket(), event.paths());
+        }
+    }
+
+    // metadata loads in progress finish before their entries are dropped, listing loads in progress are dropped
+    // with their entries, so neither can put a stale entry back
+    public void invalidate(String bucket, String path) {
+
+        Key key = key(bucket, path);
+
+        metadataCache.invalidate(key);
+        existenceCache.invalidate(key);
+        listingCache.synchronous().invalidate(key(bucket, parentOf(path)));
+
+        if (path.endsWith("/")) {
+            generations.put(new TopLevelDirectory(bucket, topLevelDirectory(path)), lastGeneration.incrementAndGet());
+        }
+    }
+
+    @Override
+    public void createBucket(String bucketName) {
+
+        s3Repository.createBucket(bucketName);
+    }
+
+    @Override
+    public void deleteBucket(String bucketName) {
+
+        s3Repository.deleteBucket(bucketName);
+    }
+
+    @Override
+    public boolean isBucketExists(String bucketName) {
+
+        return s3Repository.isBucketExists(bucketName);
+    }
+
+    @Override
+    public void deleteResource(String bucketName, String path) {
+
+        s3Repository.deleteResource(bucketName, path);
+    }
+
+    @Override
+    public List<String> findAllNamesByPrefix(String bucket, String prefix, boolean recursive) {
+
+        return s3Repository.findAllNamesByPrefix(bucket, prefix, recursive);
+    }
+
+    @Override
+    public List<ResourceMetadata> findAllByPrefix(String bucket, String prefix, boolean recursive) {
+
+        return streamByPrefix(bucket, prefix, recursive, null).toList();
+    }
+
+    // pages after a cursor are served from cached listing, but don't populate it
+    @Override
+    public Stream<ResourceMetadata> streamByPrefix(String bucket, String prefix, boolean recursive, String startAfter) {
+
+        if (!enabled || recursive) {
+            return s3Repository.streamByPrefix(bucket, prefix, recursive, startAfter);
+        }
+
+        Key key = key(bucket, prefix);
+        CompletableFuture<Listing> cached = listingCache.getIfPresent(key);
+
+        if (startAfter != null) {
+
+            Listing listing = cached == null ? null : cached.getNow(null);
+
+            return listing != null && listing.resources() != null
+                    ? listing.resources().stream().filter(resource -> resource.path().compareTo(startAfter) > 0)
+                    : s3Repository.streamByPrefix(bucket, prefix, false, startAfter);
+        }
+
+        if (cached == null) {
+
+            CompletableFuture<Listing> loading = new CompletableFuture<>();
+            cached = listingCache.asMap().putIfAbsent(key, loading);
+
+            if (cached == null) {
+                return load(bucket, prefix, loading);
+            }
+        }
+
+        // the same listing is being loaded by another request, which is waited for instead of listing it again
+        Listing listing;
+
+        try {
+
+            listing = cached.join();
+        } catch (CompletionException e) {
+
+            // load of another request failed, this one lists S3 itself
+            return s3Repository.streamByPrefix(bucket, prefix, false, null);
+        }
+
+        return listing.resources() != null
+                ? listing.resources().stream()
+                : s3Repository.streamByPrefix(bucket, prefix, false, null);
+    }
+
+    // failed load is removed from the cache by Caffeine, so the next request loads the listing again
+    private Stream<ResourceMetadata> load(String bucket, String prefix, CompletableFuture<Listing> loading) {
+
+        Overflow overflow = new Overflow();
+        Listing listing;
+
+        try {
+
+            listing = loadListing(bucket, prefix, overflow);
+        } catch (RuntimeException e) {
+
+            loading.completeExceptionally(e);
+            throw e;
+        }
+
+        loading.complete(listing);
+
+        return listing.resources() != null ? listing.resources().stream() : overflow.resources;
+    }
+
+    private Listing loadListing(String bucket, String prefix, Overflow overflow) {
+
+        RedisListingCache.Lookup lookup = redisListingCache.get(bucket, prefix);
+
+        if (lookup.listing() != null) {
+            return new Listing(List.copyOf(lookup.listing()));
+        }
+
+        Stream<ResourceMetadata> resources = s3Repository.streamByPrefix(bucket, prefix, false, null);
+        Iterator<ResourceMetadata> iterator = resources.iterator();
+        List<ResourceMetadata> listing = new ArrayList<>();
+
+        while (iterator.hasNext() && listing.size() <= maxCachedListingSize) {
+            listing.add(iterator.next());
+        }
+
+        if (listing.size() <= maxCachedListingSize) {
+
+            resources.close();
+            redisListingCache.put(lookup, prefix, listing);
+
+            return new Listing(List.copyOf(listing));
+        }
+
+        // the rest is read lazily as usual
+        overflow.resources = Stream.concat(listing.stream(),
+                        StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false))
+                .onClose(resources::close);
+
+        return Listing.OVERSIZED;
+    }
+
+    @Override
+    public Resource getResourceByPath(String bucket, String path) {
+
+        return s3Repository.getResourceByPath(bucket, path);
+    }
+
+    @Override
+    public Resource getResourceByPath(String bucket, String path, long offset, long length) {
+
+        return s3Repository.getResourceByPath(bucket, path, offset, length);
+    }
+
+    @Override
+    public ResourceMetadata getResourceMetadataByPath(String bucket, String path) {
+
+        if (!enabled) {
+            return s3Repository.getResourceMetadataByPath(bucket, path);
+        }
+
+        // missing resource isn't cached, ResourceNotFound is thrown through
+        return metadataCache.get(key(bucket, path),
+                key -> s3Repository.getResourceMetadataByPath(key.bucket(), key.path()));
+    }
+
+    @Override
+    public void saveResource(String bucket, String path, InputStream dataStream, long size, String contentType) {
+
+        s3Repository.saveResource(bucket, path, dataStream, size, contentType);
+    }
+
+    @Override
+    public void copyResource(String bucketName, String sourcePath, String targetPath) {
+
+        s3Repository.copyResource(bucketName, sourcePath, targetPath);
+    }
+
+    @Override
+    public void createDirectory(String bucketName, String path) {
+
+        s3Repository.createDirectory(bucketName, path);
+    }
+
+    @Override
+    public void createDirectories(String bucketName, Collection<String> paths) {
+
+        s3Repository.createDirectories(bucketName, paths);
+    }
+
+    @Override
+    public boolean isObjectExists(String bucketName, String path) {
+
+        if (!enabled) {
+            return s3Repository.isObjectExists(bucketName, path);
+        }
+
+        Key key = key(bucketName, path);
+
+        if (metadataCache.getIfPresent(key) != null) {
+            return true;
+        }
+
+        // absence isn't cached, resource may be written bypassing services, e.g. by presigned URL
+        return existenceCache.get(key, ignored -> s3Repository.isObjectExists(bucketName, path) ? true : null) != null;
+    }
+
+    @Override
+    public Set<String> findExistingPaths(String bucket, Collection<String> paths) {
+
+        return s3Repository.findExistingPaths(bucket, paths);
+    }
+
+    @Override
+    public String getPresignedDownloadUrl(String bucket, String path, Duration expiry) {
+
+        return s3Repository.getPresignedDownloadUrl(bucket, path, expiry);
+    }
+
+    @Override
+    public String getPresignedUploadUrl(String bucket, String path, Duration expiry) {
+
+        return s3Repository.getPresignedUploadUrl(bucket, path, expiry);
+    }
+
+    @Override
+    public String createMultipartUpload(String bucket, String path) {
+
+        return s3Repository.createMultipartUpload(bucket, path);
+    }
+
+    @Override
+    public UploadedPart uploadPart(String bucket, String path, String uploadId, int partNumber,
+                                   InputStream dataStream, long size) {
+
+        return s3Repository.uploadPart(bucket, path, uploadId, partNumber, dataStream, size);
+    }
+
+    @Override
+    public List<UploadedPart> findAllUploadedParts(String bucket, String path, String uploadId) {
+
+        return s3Repository.findAllUploadedParts(bucket, path, uploadId);
+    }
+
+    @Override
+    public void completeMultipartUpload(String bucket, String path, String uploadId, List<UploadedPart> parts) {
+
+        s3Repository.completeMultipartUpload(bucket, path, uploadId, parts);
+    }
+
+    @Override
+    public void abortMultipartUpload(String bucket, String path, String uploadId) {
+
+        s3Repository.abortMultipartUpload(bucket, path, uploadId);
+    }
+
+    private Key key(String bucket, String path) {
+
+        Long generation = generations.getIfPresent(new TopLevelDirectory(bucket, topLevelDirectory(path)));
+
+        return new Key(bucket, path, generation == null ? 0 : generation);
+    }
+
+    private String topLevelDirectory(String path) {
+
+        return path.substring(0, path.indexOf('/') + 1);
+    }
+
+    private String parentOf(String path) {
+
+        String withoutSlash = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+
+        return withoutSlash.substring(0, withoutSlash.lastIndexOf('/') + 1);
+    }
+}
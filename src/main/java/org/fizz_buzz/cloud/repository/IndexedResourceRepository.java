@@ -0,0 +1,84 @@
+package org.fizz_buzz.cloud.repository;
+
+import org.fizz_buzz.cloud.model.IndexedResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface IndexedResourceRepository extends CrudRepository<IndexedResource, IndexedResource.Key> {
+
+    List<IndexedResource> findAllByUserIdAndParentAndPathGreaterThanOrderByPathAsc(Long userId,
+                                                                                   String parent,
+                                                                                   String startAfter,
+                                                                                   Limit limit);
+
+    List<IndexedResource> findAllByUserIdAndPathIn(Long userId, Collection<String> paths);
+
+    // exact name match has rank 0, name starting with the query 1, any other match 2
+    @Query(value = """
+            SELECT * FROM resources
+            WHERE user_id = :userId
+              AND lower(name) LIKE :pattern ESCAPE '\\'
+              AND (CASE WHEN lower(name) = :query THEN 0 WHEN starts_with(lower(name), :query) THEN 1 ELSE 2 END, path)
+                  > (:afterRank, :afterPath)
+            ORDER BY CASE WHEN lower(name) = :query THEN 0 WHEN starts_with(lower(name), :query) THEN 1 ELSE 2 END,
+                     path
+            LIMIT :limit""",
+            nativeQuery = true)
+    List<IndexedResource> searchByName(@Param("userId") Long userId,
+                                       @Param("query") String query,
+                                       @Param("pattern") String pattern,
+                                       @Param("afterRank") int afterRank,
+                                       @Param("afterPath") String afterPath,
+                                       @Param("limit") int limit);
+
+    // exact name match has rank 0, name starting with the query 1, names are read by range of the btree index,
+    // a string starting with the query can't be greater than the query followed by the last code point
+    @Query(value = """
+            SELECT * FROM resources
+            WHERE user_id = :userId
+              AND lower(name) COLLATE "C" >= :query
+              AND lower(name) COLLATE "C" < :query || chr(1114111)
+              AND (CASE WHEN lower(name) = :query THEN 0 ELSE 1 END, path) > (:afterRank, :afterPath)
+            ORDER BY CASE WHEN lower(name) = :query THEN 0 ELSE 1 END, path
+            LIMIT :limit""",
+            nativeQuery = true)
+    List<IndexedResource> searchByNamePrefix(@Param("userId") Long userId,
+                                             @Param("query") String query,
+                                             @Param("afterRank") int afterRank,
+                                             @Param("afterPath") String afterPath,
+                                             @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM resources WHERE user_id = :userId AND starts_with(path, :prefix)",
+            nativeQuery = true)
+    int deleteAllByPrefix(@Param("userId") Long userId, @Param("prefix") String prefix);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM resources
+            WHERE user_id = :userId AND path = :path AND last_modified <= :modifiedBefore""",
+            nativeQuery = true)
+    int deleteByPathModifiedNotAfter(@Param("userId") Long userId,
+                                     @Param("path") String path,
+                                     @Param("modifiedBefore") Instant modifiedBefore);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM resources
+            WHERE user_id = :userId AND starts_with(path, :prefix) AND indexed_at < :indexedBefore""",
+            nativeQuery = true)
+    int deleteAllByPrefixIndexedBefore(@Param("userId") Long userId,
+                                       @Param("prefix") String prefix,
+                                       @Param("indexedBefore") Instant indexedBefore);
+}
@@ -1,10 +1,16 @@
 package org.fizz_buzz.cloud.repository;
 
 import io.minio.BucketExistsArgs;
+import io.minio.ComposeObjectArgs;
+import io.minio.ComposeSource;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
 import io.minio.GetObjectArgs;
+import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.ListObjectsArgs;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
+import io.minio.ObjectWriteArgs;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveBucketArgs;
 import io.minio.RemoveObjectArgs;
@@ -12,31 +18,81 @@ import io.minio.RemoveObjectsArgs;
 import io.minio.Result;
 import io.minio.StatObjectArgs;
 import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
-import lombok.RequiredArgsConstructor;
+import io.minio.messages.Part;
+import org.fizz_buzz.cloud.concurrent.BulkOperationExecutor;
+import org.fizz_buzz.cloud.exception.BulkOperationException;
 import org.fizz_buzz.cloud.exception.EmptyPathException;
 import org.fizz_buzz.cloud.exception.ForbiddenSymbolException;
+import org.fizz_buzz.cloud.exception.InvalidUploadException;
+import org.fizz_buzz.cloud.exception.ResourceAlreadyExistsException;
 import org.fizz_buzz.cloud.exception.ResourceNotFound;
 import org.fizz_buzz.cloud.exception.S3RepositoryException;
 import org.fizz_buzz.cloud.model.Resource;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.model.UploadedPart;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 import org.springframework.validation.annotation.Validated;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Repository
-@RequiredArgsConstructor
 @Validated
 public class MinioRepository implements S3Repository {
 
+    private static final int DELETE_BATCH_SIZE = 1000;
+    // parent with more paths to check is listed, fewer paths are checked one by one
+    static final int MAX_PATHS_CHECKED_ONE_BY_ONE = 16;
+    // objects are never overwritten, write fails if the key is already taken
+    private static final Map<String, String> IF_ABSENT = Map.of("If-None-Match", "*");
+
     private final MinioClient minioClient;
+    private final MinioClient presignedUrlMinioClient;
+    private final MultipartMinioClient multipartMinioClient;
+    private final BulkOperationExecutor bulkOperationExecutor;
+    private final UploadPartPolicy uploadPartPolicy;
+
+    public MinioRepository(MinioClient minioClient,
+                           @Qualifier("presignedUrlMinioClient") MinioClient presignedUrlMinioClient,
+                           MultipartMinioClient multipartMinioClient,
+                           BulkOperationExecutor bulkOperationExecutor,
+                           UploadPartPolicy uploadPartPolicy) {
+
+        this.minioClient = minioClient;
+        this.presignedUrlMinioClient = presignedUrlMinioClient;
+        this.multipartMinioClient = multipartMinioClient;
+        this.bulkOperationExecutor = bulkOperationExecutor;
+        this.uploadPartPolicy = uploadPartPolicy;
+    }
 
     @Override
     public void createBucket(String bucketName) {
@@ -121,6 +177,43 @@ public class MinioRepository implements S3Repository {
         return names;
     }
 
+    @Override
+    public List<ResourceMetadata> findAllByPrefix(String bucket, String prefix, boolean recursive) {
+
+        return streamByPrefix(bucket, prefix, recursive, null).toList();
+    }
+
+    @Override
+    public Stream<ResourceMetadata> streamByPrefix(String bucket, String prefix, boolean recursive, String startAfter) {
+
+        var listObjectsArgs = ListObjectsArgs
+                .builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .recursive(recursive);
+
+        if (startAfter != null) {
+            listObjectsArgs.startAfter(startAfter);
+        }
+
+        // listing is lazy, next page is requested from S3 only when previous one is consumed
+        var directoryObjects = minioClient.listObjects(listObjectsArgs.build());
+
+        return StreamSupport.stream(directoryObjects.spliterator(), false)
+                .map(directoryObject -> {
+
+                    try {
+
+                        return itemToResourceMetadata(directoryObject.get());
+                    } catch (Exception e) {
+
+                        throw new S3RepositoryException(e);
+                    }
+                })
+                // S3 may return common prefix equal to startAfter once more in non-recursive listing
+                .filter(resource -> startAfter == null || resource.path().compareTo(startAfter) > 0);
+    }
+
     @Override
     public void deleteResource(String bucketName, String path) {
 
@@ -130,28 +223,12 @@ public class MinioRepository implements S3Repository {
 
             if (path.endsWith("/")) {
 
-                var directoryObjects = minioClient.listObjects(ListObjectsArgs
-                        .builder()
-                        .bucket(bucketName)
-                        .prefix(path)
-                        .recursive(true)
-                        .build());
-
-                List<DeleteObject> deleteObjects = new LinkedList<>();
-
-                for (Result<Item> object : directoryObjects) {
-                    deleteObjects.add(new DeleteObject(object.get().objectName()));
-                }
+                // single DeleteObjects request is limited by 1000 keys, so batches of keys are removed in parallel
+                var batches = batches(streamByPrefix(bucketName, path, true, null).map(ResourceMetadata::path),
+                        DELETE_BATCH_SIZE);
 
-                var result = minioClient.removeObjects(RemoveObjectsArgs
-                        .builder()
-                        .bucket(bucketName)
-                        .objects(deleteObjects)
-                        .build());
-
-                //needed for eager removal of objects
-                for (Result<DeleteError> deleteErrorResult : result) {
-                }
+                bulkOperationExecutor.execute(batches, batch -> removeObjects(bucketName, batch))
+                        .throwIfFailed();
             } else {
 
                 minioClient.removeObject(RemoveObjectArgs.builder()
@@ -159,6 +236,8 @@ public class MinioRepository implements S3Repository {
                         .object(path)
                         .build());
             }
+        } catch (BulkOperationException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -167,26 +246,29 @@ public class MinioRepository implements S3Repository {
     @Override
     public Resource getResourceByPath(String bucket, String path) {
 
+        return getObject(bucket, path, null, null);
+    }
+
+    @Override
+    public Resource getResourceByPath(String bucket, String path, long offset, long length) {
+
+        return getObject(bucket, path, offset, length);
+    }
+
+    @Override
+    public ResourceMetadata getResourceMetadataByPath(String bucket, String path) {
+
         try {
 
-            var objectStream = minioClient.getObject(GetObjectArgs.builder()
+            var objectStat = minioClient.statObject(StatObjectArgs.builder()
                     .bucket(bucket)
                     .object(path)
                     .build());
 
-            var objects = minioClient.listObjects(ListObjectsArgs.builder()
-                    .bucket(bucket)
-                    .prefix(path)
-                    .build());
-
-            if (objects.iterator().hasNext()) {
-
-                var objectInfo = objects.iterator().next();
-
-                return new Resource(objectStream.object(), objectStream, objectInfo.get().size());
-            } else {
-                throw new ResourceNotFound(path);
-            }
+            return new ResourceMetadata(objectStat.object(),
+                    objectStat.size(),
+                    objectStat.etag(),
+                    objectStat.lastModified());
         } catch (ErrorResponseException e) {
             if (e.errorResponse().code().equals("NoSuchKey")) {
                 throw new ResourceNotFound(path);
@@ -198,50 +280,296 @@ public class MinioRepository implements S3Repository {
         }
     }
 
-    public void saveResource(String bucket, String path, InputStream dataStream) {
+    @Override
+    public void saveResource(String bucket, String path, InputStream dataStream, long size, String contentType) {
 
         try {
 
-            minioClient.putObject(PutObjectArgs
-                    .builder()
-                    .bucket(bucket)
-                    .object(path)
-                    .stream(dataStream, -1, 10485760)
-                    .build());
+            if (uploadPartPolicy.isSinglePart(size)) {
+
+                putObject(bucket, path, dataStream, size, contentType);
+                return;
+            }
+
+            long partSize = uploadPartPolicy.partSize(size);
+            byte[] firstPart = dataStream.readNBytes(Math.toIntExact(partSize));
+
+            // object of unknown size turned out to be small
+            if (firstPart.length < partSize) {
+
+                putObject(bucket, path, new ByteArrayInputStream(firstPart), firstPart.length, contentType);
+                return;
+            }
+
+            putObjectByParts(bucket, path, dataStream, contentType, firstPart, partSize);
+        } catch (S3RepositoryException | InvalidUploadException e) {
+            throw e;
         } catch (Exception e) {
+
+            if (isPreconditionFailed(e)) {
+                throw new ResourceAlreadyExistsException(path);
+            }
+
             throw new S3RepositoryException(e);
         }
     }
 
+    private void putObject(String bucket, String path, InputStream dataStream, long size, String contentType)
+            throws Exception {
+
+        var args = PutObjectArgs.builder()
+                .bucket(bucket)
+                .object(path)
+                .headers(IF_ABSENT)
+                // part isn't smaller than the object, so it is sent by a single request
+                .stream(dataStream, size, Math.max(size, ObjectWriteArgs.MIN_MULTIPART_SIZE));
+
+        if (contentType != null) {
+            args.contentType(contentType);
+        }
+
+        minioClient.putObject(args.build());
+    }
+
+    // number of parts in flight is bounded, so memory doesn't depend on the object size
+    private void putObjectByParts(String bucket, String path, InputStream dataStream, String contentType,
+                                  byte[] firstPart, long partSize) throws Exception {
+
+        String uploadId = multipartMinioClient.createMultipartUpload(bucket, path, contentType);
+        Semaphore slots = new Semaphore(uploadPartPolicy.parallelism());
+        List<Future<Part>> parts = new ArrayList<>();
+
+        try {
+
+            byte[] data = firstPart;
+
+            while (data.length > 0) {
+
+                int partNumber = parts.size() + 1;
+
+                // failed before the rest is sent, S3 would reject the upload only at completion
+                if (partNumber > ObjectWriteArgs.MAX_MULTIPART_COUNT) {
+                    throw new InvalidUploadException("Upload exceeds limit of %d bytes"
+                            .formatted(partSize * ObjectWriteArgs.MAX_MULTIPART_COUNT));
+                }
+
+                slots.acquire();
+
+                byte[] partData = data;
+
+                parts.add(bulkOperationExecutor.submit(() -> {
+
+                    try {
+
+                        return new Part(partNumber,
+                                multipartMinioClient.uploadPart(bucket, path, uploadId, partNumber, partData));
+                    } finally {
+
+                        slots.release();
+                    }
+                }));
+
+                data = dataStream.readNBytes(Math.toIntExact(partSize));
+            }
+
+            Part[] uploaded = new Part[parts.size()];
+
+            for (int i = 0; i < uploaded.length; i++) {
+                uploaded[i] = parts.get(i).get();
+            }
+
+            multipartMinioClient.completeMultipartUpload(bucket, path, uploadId, uploaded);
+        } catch (Exception e) {
+
+            parts.forEach(part -> part.cancel(true));
+
+            try {
+
+                multipartMinioClient.abortMultipartUpload(bucket, path, uploadId);
+            } catch (Exception abortException) {
+
+                e.addSuppressed(abortException);
+            }
+
+            throw e;
+        }
+    }
+
+    @Override
+    public void copyResource(String bucketName, String sourcePath, String targetPath) {
+
+        isValidPath(sourcePath);
+        isValidPath(targetPath);
+
+        if (sourcePath.endsWith("/")) {
+
+            // listing is read completely before copying, so new objects can't get into it
+            var resources = findAllByPrefix(bucketName, sourcePath, true);
+
+            bulkOperationExecutor.execute(resources.stream(), resource -> copyObject(bucketName,
+                            resource.path(),
+                            targetPath.concat(resource.path().substring(sourcePath.length())),
+                            resource.size()))
+                    .throwIfFailed();
+        } else {
+
+            copyObject(bucketName, sourcePath, targetPath, getResourceMetadataByPath(bucketName, sourcePath).size());
+        }
+    }
+
     @Override
     public void createDirectory(String bucketName, String path) {
 
-        List<String> directories = new ArrayList<>();
+        String parent = parentOf(path);
 
-        for (int i = 0; i < path.length(); i++) {
-            if (path.charAt(i) == '/') {
-                directories.add(path.substring(0, i + 1));
+        if (!parent.isEmpty()) {
+            createDirectories(bucketName, List.of(parent));
+        }
+
+        if (!putDirectoryMarker(bucketName, path)) {
+            throw new ResourceAlreadyExistsException(path);
+        }
+    }
+
+    // existence of directories and their ancestors is resolved at once, missing ones are created in parallel
+    @Override
+    public void createDirectories(String bucketName, Collection<String> paths) {
+
+        Set<String> directories = new TreeSet<>();
+
+        for (String path : paths) {
+
+            for (int i = 0; i < path.length(); i++) {
+                if (path.charAt(i) == '/') {
+                    directories.add(path.substring(0, i + 1));
+                }
             }
+
+            directories.add(path);
         }
 
-        directories.add(path);
+        directories.removeAll(findExistingPaths(bucketName, directories));
+
+        // directory created concurrently by another request is fine here
+        bulkOperationExecutor.execute(directories.stream(), directory -> putDirectoryMarker(bucketName, directory))
+                .throwIfFailed();
+    }
+
+    // false if the directory already exists
+    private boolean putDirectoryMarker(String bucketName, String path) {
 
         try {
 
-            for (String directory : directories) {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(path)
+                    .headers(IF_ABSENT)
+                    .stream(new ByteArrayInputStream(new byte[0]), 0, -1)
+                    .build());
 
-                if (!isObjectExists(bucketName, directory)) {
-                    minioClient.putObject(PutObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(directory)
-                            .stream(new ByteArrayInputStream(new byte[0]), 0, -1)
-                            .build());
+            return true;
+        } catch (Exception e) {
+
+            if (isPreconditionFailed(e)) {
+                return false;
+            }
+
+            throw new S3RepositoryException(e);
+        }
+    }
+
+    // parent with many paths is listed in range of the paths, few paths are checked one by one,
+    // nothing is checked below a directory known to be missing
+    @Override
+    public Set<String> findExistingPaths(String bucket, Collection<String> paths) {
+
+        paths.forEach(MinioRepository::isValidPath);
+
+        Set<String> existing = new HashSet<>();
+        Set<String> missingDirectories = new HashSet<>();
+
+        Map<String, List<String>> pathsByParent = paths.stream()
+                .distinct()
+                .collect(Collectors.groupingBy(MinioRepository::parentOf, TreeMap::new, Collectors.toList()));
+
+        for (var entry : pathsByParent.entrySet()) {
+
+            String parent = entry.getKey();
+            Set<String> children;
+
+            if (isUnderMissingDirectory(parent, missingDirectories)) {
+
+                children = Set.of();
+            } else if (parent.isEmpty() || entry.getValue().size() <= MAX_PATHS_CHECKED_ONE_BY_ONE) {
+
+                // root of the bucket holds folders of all users, so it is cheaper to check paths directly
+                children = findExistingOneByOne(bucket, entry.getValue());
+            } else {
+
+                children = findNamesInRange(bucket, parent, entry.getValue());
+            }
+
+            for (String path : entry.getValue()) {
+
+                if (children.contains(path)) {
+                    existing.add(path);
+                } else if (path.endsWith("/")) {
+                    missingDirectories.add(path);
                 }
             }
+        }
+
+        return existing;
+    }
+
+    private Set<String> findExistingOneByOne(String bucket, List<String> paths) {
+
+        Set<String> existing = ConcurrentHashMap.newKeySet();
+
+        bulkOperationExecutor.execute(paths.stream(), path -> {
+
+                    if (isObjectExists(bucket, path) || path.endsWith("/") && isPrefixExists(bucket, path)) {
+                        existing.add(path);
+                    }
+                })
+                .throwIfFailed();
+
+        return existing;
+    }
+
+    // directory without marker, e.g. created bypassing this application, exists while anything is inside
+    boolean isPrefixExists(String bucket, String prefix) {
+
+        Iterator<Result<Item>> items = minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .recursive(true)
+                .maxKeys(1)
+                .build()).iterator();
+
+        try {
+
+            // failure of listing is returned as an item
+            return items.hasNext() && items.next().get() != null;
         } catch (Exception e) {
-            throw new RuntimeException(e);
+
+            throw new S3RepositoryException(e);
         }
+    }
 
+    // listing starts after a proper prefix of the first path, which is ordered right before it
+    Set<String> findNamesInRange(String bucket, String parent, List<String> paths) {
+
+        String first = paths.stream().min(String::compareTo).orElseThrow();
+        String last = paths.stream().max(String::compareTo).orElseThrow();
+
+        try (Stream<ResourceMetadata> resources = streamByPrefix(bucket, parent, false,
+                first.substring(0, first.length() - 1))) {
+
+            return resources.map(ResourceMetadata::path)
+                    .takeWhile(path -> path.compareTo(last) <= 0)
+                    .collect(Collectors.toSet());
+        }
     }
 
     public boolean isObjectExists(String bucketName, String path) {
@@ -267,7 +595,263 @@ public class MinioRepository implements S3Repository {
         return true;
     }
 
-    private void isValidPath(String path) {
+    private Resource getObject(String bucket, String path, Long offset, Long length) {
+
+        try {
+
+            var objectStream = minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(path)
+                    .offset(offset)
+                    .length(length)
+                    .build());
+
+            // size is taken from the response itself, so no additional request is needed
+            return new Resource(objectStream.object(),
+                    objectStream,
+                    Long.parseLong(objectStream.headers().get("Content-Length")));
+        } catch (ErrorResponseException e) {
+            if (e.errorResponse().code().equals("NoSuchKey")) {
+                throw new ResourceNotFound(path);
+            } else {
+                throw new S3RepositoryException(e);
+            }
+        } catch (Exception e) {
+            throw new S3RepositoryException(e);
+        }
+    }
+
+    // data is copied inside S3, so it doesn't go through application
+    private void copyObject(String bucketName, String sourcePath, String targetPath, long size) {
+
+        try {
+
+            if (size > ObjectWriteArgs.MAX_PART_SIZE) {
+
+                // single CopyObject is limited by 5GB, bigger objects are copied by parts with UploadPartCopy
+                minioClient.composeObject(ComposeObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(targetPath)
+                        .sources(List.of(ComposeSource.builder()
+                                .bucket(bucketName)
+                                .object(sourcePath)
+                                .build()))
+                        .build());
+            } else {
+
+                minioClient.copyObject(CopyObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(targetPath)
+                        .source(CopySource.builder()
+                                .bucket(bucketName)
+                                .object(sourcePath)
+                                .build())
+                        .build());
+            }
+        } catch (ErrorResponseException e) {
+            if (e.errorResponse().code().equals("NoSuchKey")) {
+                throw new ResourceNotFound(sourcePath);
+            } else {
+                throw new S3RepositoryException(e);
+            }
+        } catch (Exception e) {
+            throw new S3RepositoryException(e);
+        }
+    }
+
+    private void removeObjects(String bucketName, List<String> paths) throws Exception {
+
+        var result = minioClient.removeObjects(RemoveObjectsArgs
+                .builder()
+                .bucket(bucketName)
+                .objects(paths.stream().map(DeleteObject::new).toList())
+                .build());
+
+        // objects are removed only while result is iterated
+        for (Result<DeleteError> deleteErrorResult : result) {
+
+            DeleteError deleteError = deleteErrorResult.get();
+
+            throw new S3RepositoryException("Object \"%s\" wasn't removed: %s"
+                    .formatted(deleteError.objectName(), deleteError.message()));
+        }
+    }
+
+    private static <T> Stream<List<T>> batches(Stream<T> elements, int batchSize) {
+
+        Iterator<T> iterator = elements.iterator();
+
+        Iterator<List<T>> batchIterator = new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+
+                List<T> batch = new ArrayList<>(batchSize);
+
+                while (iterator.hasNext() && batch.size() < batchSize) {
+                    batch.add(iterator.next());
+                }
+
+                return batch;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batchIterator, Spliterator.ORDERED), false)
+                .onClose(elements::close);
+    }
+
+    private ResourceMetadata itemToResourceMetadata(Item item) {
+
+        // common prefixes of non-recursive listing have neither etag nor modification time
+        if (item.isDir()) {
+            return new ResourceMetadata(item.objectName(), 0, null, null);
+        }
+
+        return new ResourceMetadata(item.objectName(),
+                item.size(),
+                item.etag() == null ? null : item.etag().replace("\"", ""),
+                item.lastModified());
+    }
+
+    @Override
+    public String getPresignedDownloadUrl(String bucket, String path, Duration expiry) {
+
+        return getPresignedUrl(Method.GET, bucket, path, expiry);
+    }
+
+    @Override
+    public String getPresignedUploadUrl(String bucket, String path, Duration expiry) {
+
+        return getPresignedUrl(Method.PUT, bucket, path, expiry);
+    }
+
+    private String getPresignedUrl(Method method, String bucket, String path, Duration expiry) {
+
+        isValidPath(path);
+
+        try {
+
+            return presignedUrlMinioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(method)
+                    .bucket(bucket)
+                    .object(path)
+                    .expiry((int) expiry.toSeconds(), TimeUnit.SECONDS)
+                    .build());
+        } catch (Exception e) {
+            throw new S3RepositoryException(e);
+        }
+    }
+
+    @Override
+    public String createMultipartUpload(String bucket, String path) {
+
+        isValidPath(path);
+
+        try {
+
+            return multipartMinioClient.createMultipartUpload(bucket, path, null);
+        } catch (Exception e) {
+            throw new S3RepositoryException(e);
+        }
+    }
+
+    @Override
+    public UploadedPart uploadPart(String bucket, String path, String uploadId, int partNumber,
+                                   InputStream dataStream, long size) {
+
+        try {
+
+            String etag = multipartMinioClient.uploadPart(bucket, path, uploadId, partNumber, dataStream, size);
+
+            return new UploadedPart(partNumber, etag.replace("\"", ""), size);
+        } catch (EOFException e) {
+
+            throw new InvalidUploadException("Part ended before %d bytes".formatted(size));
+        } catch (Exception e) {
+            throw new S3RepositoryException(e);
+        }
+    }
+
+    @Override
+    public List<UploadedPart> findAllUploadedParts(String bucket, String path, String uploadId) {
+
+        try {
+
+            return multipartMinioClient.listParts(bucket, path, uploadId)
+                    .stream()
+                    .map(part -> new UploadedPart(part.partNumber(), part.etag().replace("\"", ""), part.partSize()))
+                    .toList();
+        } catch (Exception e) {
+            throw new S3RepositoryException(e);
+        }
+    }
+
+    @Override
+    public void completeMultipartUpload(String bucket, String path, String uploadId, List<UploadedPart> parts) {
+
+        try {
+
+            multipartMinioClient.completeMultipartUpload(bucket, path, uploadId, parts
+                    .stream()
+                    .map(part -> new Part(part.number(), part.etag()))
+                    .toArray(Part[]::new));
+        } catch (Exception e) {
+
+            if (isPreconditionFailed(e)) {
+                throw new ResourceAlreadyExistsException(path);
+            }
+
+            throw new S3RepositoryException(e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String bucket, String path, String uploadId) {
+
+        try {
+
+            multipartMinioClient.abortMultipartUpload(bucket, path, uploadId);
+        } catch (Exception e) {
+            throw new S3RepositoryException(e);
+        }
+    }
+
+    static boolean isPreconditionFailed(Throwable e) {
+
+        // async client wraps errors of S3
+        while ((e instanceof ExecutionException || e instanceof CompletionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+
+        return e instanceof ErrorResponseException errorResponseException
+                && errorResponseException.errorResponse().code().equals("PreconditionFailed");
+    }
+
+    static String parentOf(String path) {
+
+        String withoutSlash = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+
+        return withoutSlash.substring(0, withoutSlash.lastIndexOf('/') + 1);
+    }
+
+    private static boolean isUnderMissingDirectory(String path, Set<String> missingDirectories) {
+
+        for (int i = 0; i < path.length(); i++) {
+
+            if (path.charAt(i) == '/' && missingDirectories.contains(path.substring(0, i + 1))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    static void isValidPath(String path) {
 
         String forbiddenSymbols = ".*[\\\\/?*:<>\"|].*";
 
@@ -0,0 +1,151 @@
+package org.fizz_buzz.cloud.repository;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.http.HttpUtils;
+import io.minio.http.Method;
+import io.minio.messages.Part;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// exposes separate steps of multipart upload, which MinIO client performs by itself in putObject
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    private static final int MAX_PARTS_PER_LISTING = 1000;
+    // the same timeout as minio client sets for its default HTTP client
+    private static final long HTTP_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+    // URL is used at once, S3 checks its expiry only when the request starts
+    private static final int PART_URL_EXPIRY_SECONDS = 60;
+
+    private final OkHttpClient partHttpClient = HttpUtils.newDefaultHttpClient(HTTP_TIMEOUT, HTTP_TIMEOUT,
+            HTTP_TIMEOUT);
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    public String createMultipartUpload(String bucket, String path, String contentType) throws Exception {
+
+        Multimap<String, String> headers = HashMultimap.create();
+
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+
+        return createMultipartUploadAsync(bucket, null, path, headers, null)
+                .get()
+                .result()
+                .uploadId();
+    }
+
+    public String uploadPart(String bucket, String path, String uploadId, int partNumber, byte[] data)
+            throws Exception {
+
+        return uploadPartAsync(bucket, null, path, data, data.length, uploadId, partNumber, null, null)
+                .get()
+                .etag();
+    }
+
+    // presigned URL leaves payload unsigned, so the part is sent while it's received, without hashing
+    public String uploadPart(String bucket, String path, String uploadId, int partNumber, InputStream data,
+                             long length) throws Exception {
+
+        String url = getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                .method(Method.PUT)
+                .bucket(bucket)
+                .object(path)
+                .extraQueryParams(Map.of("uploadId", uploadId, "partNumber", Integer.toString(partNumber)))
+                .expiry(PART_URL_EXPIRY_SECONDS)
+                .build());
+
+        RequestBody body = new RequestBody() {
+
+            @Override
+            public MediaType contentType() {
+
+                return null;
+            }
+
+            @Override
+            public long contentLength() {
+
+                return length;
+            }
+
+            // stream can't be read again, so the request isn't retried
+            @Override
+            public boolean isOneShot() {
+
+                return true;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+
+                sink.write(Okio.source(data), length);
+            }
+        };
+
+        try (Response response = partHttpClient.newCall(new Request.Builder().url(url).put(body).build()).execute()) {
+
+            if (!response.isSuccessful()) {
+                throw new IOException("Part %d isn't uploaded, S3 responded with %d".formatted(partNumber,
+                        response.code()));
+            }
+
+            return response.header("ETag");
+        }
+    }
+
+    public List<Part> listParts(String bucket, String path, String uploadId) throws Exception {
+
+        List<Part> parts = new ArrayList<>();
+        Integer partNumberMarker = null;
+
+        while (true) {
+
+            var result = listPartsAsync(bucket, null, path, MAX_PARTS_PER_LISTING, partNumberMarker, uploadId,
+                    null, null)
+                    .get()
+                    .result();
+
+            parts.addAll(result.partList());
+
+            if (!result.isTruncated()) {
+                return parts;
+            }
+
+            partNumberMarker = result.nextPartNumberMarker();
+        }
+    }
+
+    // object is created only if it doesn't exist yet, otherwise S3 responds with PreconditionFailed
+    public ObjectWriteResponse completeMultipartUpload(String bucket, String path, String uploadId, Part[] parts)
+            throws Exception {
+
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put("If-None-Match", "*");
+
+        return completeMultipartUploadAsync(bucket, null, path, uploadId, parts, headers, null).get();
+    }
+
+    public void abortMultipartUpload(String bucket, String path, String uploadId) throws Exception {
+
+        abortMultipartUploadAsync(bucket, null, path, uploadId, null, null).get();
+    }
+}
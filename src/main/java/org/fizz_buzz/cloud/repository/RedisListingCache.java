@@ -0,0 +1,220 @@
+package org.fizz_buzz.cloud.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// any change in a top level directory replaces its version, so all its listings become unreachable
+// Redis failures are never thrown, listing is requested from S3 instead
+@Slf4j
+@Component
+@PropertySource("classpath:application.properties")
+public class RedisListingCache {
+
+    private static final String VERSION_KEY = "cloud:listing-version:%s:%s";
+    private static final String LISTING_KEY = "cloud:listing:%s:%s:%s:%s";
+    private static final String INITIAL_VERSION = "0";
+    private static final byte FORMAT_VERSION = 1;
+
+    // key is taken before listing is requested from S3, so listing read before a change can't be written
+    // with version made after the change, key is null when listing can't be cached
+    public record Lookup(String key, List<ResourceMetadata> listing) {
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Duration expiry;
+
+    public RedisListingCache(StringRedisTemplate redisTemplate,
+                             @Value("${application.metadata-cache.far-tier.enabled}") boolean enabled,
+                             @Value("${application.metadata-cache.far-tier.expiry}") Duration expiry) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.expiry = expiry;
+    }
+
+    public Lookup get(String bucket, String prefix) {
+
+        if (!enabled) {
+            return new Lookup(null, null);
+        }
+
+        String key;
+
+        try {
+
+            key = listingKey(bucket, prefix);
+        } catch (RuntimeException e) {
+
+            log.debug("Failed to read version of listing of {} from Redis", prefix, e);
+
+            return new Lookup(null, null);
+        }
+
+        try {
+
+            byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(key.getBytes(StandardCharsets.UTF_8)));
+
+            return new Lookup(key, value == null ? null : decode(prefix, value));
+        } catch (IOException | RuntimeException e) {
+
+            log.debug("Failed to read listing of {} from Redis", prefix, e);
+
+            return new Lookup(key, null);
+        }
+    }
+
+    public void put(Lookup lookup, String prefix, List<ResourceMetadata> listing) {
+
+        if (lookup.key() == null) {
+            return;
+        }
+
+        try {
+
+            byte[] key = lookup.key().getBytes(StandardCharsets.UTF_8);
+            byte[] value = encode(prefix, listing);
+
+            redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.stringCommands().setEx(key, expiry.toSeconds(), value));
+        } catch (IOException | RuntimeException e) {
+
+            log.debug("Failed to write listing of {} to Redis", prefix, e);
+        }
+    }
+
+    public void invalidate(String bucket, Collection<String> paths) {
+
+        if (!enabled) {
+            return;
+        }
+
+        Set<String> topLevelDirectories = new LinkedHashSet<>();
+
+        for (String path : paths) {
+            topLevelDirectories.add(topLevelDirectory(path));
+        }
+
+        try {
+
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+
+                for (String directory : topLevelDirectories) {
+                    replaceVersion(connection, VERSION_KEY.formatted(bucket, directory));
+                }
+
+                return null;
+            });
+        } catch (RuntimeException e) {
+
+            log.warn("Failed to invalidate listings of {} in Redis", topLevelDirectories, e);
+        }
+    }
+
+    // versions never repeat, so a listing written late under some version can't be reached again after the
+    // version key expires. The key outlives listings written before the change, which are under the initial version
+    private void replaceVersion(RedisConnection connection, String versionKey) {
+
+        connection.stringCommands().set(versionKey.getBytes(StandardCharsets.UTF_8),
+                UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8),
+                Expiration.seconds(expiry.multipliedBy(2).toSeconds()),
+                RedisStringCommands.SetOption.upsert());
+    }
+
+    private String listingKey(String bucket, String prefix) {
+
+        String version = redisTemplate.opsForValue().get(VERSION_KEY.formatted(bucket, topLevelDirectory(prefix)));
+
+        return LISTING_KEY.formatted(bucket,
+                topLevelDirectory(prefix),
+                version == null ? INITIAL_VERSION : version,
+                prefix);
+    }
+
+    private String topLevelDirectory(String path) {
+
+        return path.substring(0, path.indexOf('/') + 1);
+    }
+
+    // paths are written relative to the listed prefix, optional fields are marked by flags
+    private byte[] encode(String prefix, List<ResourceMetadata> listing) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+
+            output.writeByte(FORMAT_VERSION);
+            output.writeInt(listing.size());
+
+            for (ResourceMetadata resource : listing) {
+
+                output.writeUTF(resource.path().substring(prefix.length()));
+                output.writeLong(resource.size());
+                output.writeByte((resource.etag() == null ? 0 : 1) | (resource.lastModified() == null ? 0 : 2));
+
+                if (resource.etag() != null) {
+                    output.writeUTF(resource.etag());
+                }
+
+                if (resource.lastModified() != null) {
+                    output.writeLong(resource.lastModified().toInstant().toEpochMilli());
+                }
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private List<ResourceMetadata> decode(String prefix, byte[] value) throws IOException {
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(value))) {
+
+            if (input.readByte() != FORMAT_VERSION) {
+                throw new IOException("Unknown format of cached listing");
+            }
+
+            int count = input.readInt();
+            List<ResourceMetadata> listing = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+
+                String path = prefix.concat(input.readUTF());
+                long size = input.readLong();
+                byte flags = input.readByte();
+                String etag = (flags & 1) == 0 ? null : input.readUTF();
+                ZonedDateTime lastModified = (flags & 2) == 0
+                        ? null
+                        : Instant.ofEpochMilli(input.readLong()).atZone(ZoneOffset.UTC);
+
+                listing.add(new ResourceMetadata(path, size, etag, lastModified));
+            }
+
+            return listing;
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package org.fizz_buzz.cloud.repository;
 
 import org.fizz_buzz.cloud.model.Resource;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.model.UploadedPart;
 
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface S3Repository {
 
@@ -12,8 +18,22 @@ public interface S3Repository {
     boolean isBucketExists(String bucketName);
     void deleteResource(String bucketName, String path);
     List<String> findAllNamesByPrefix(String bucket, String prefix, boolean recursive);
+    List<ResourceMetadata> findAllByPrefix(String bucket, String prefix, boolean recursive);
+    Stream<ResourceMetadata> streamByPrefix(String bucket, String prefix, boolean recursive, String startAfter);
     Resource getResourceByPath(String bucket, String path);
-    void saveResource(String bucket, String path, InputStream dataStream);
+    Resource getResourceByPath(String bucket, String path, long offset, long length);
+    ResourceMetadata getResourceMetadataByPath(String bucket, String path);
+    void saveResource(String bucket, String path, InputStream dataStream, long size, String contentType);
+    void copyResource(String bucketName, String sourcePath, String targetPath);
     void createDirectory(String bucketName, String path);
+    void createDirectories(String bucketName, Collection<String> paths);
     boolean isObjectExists(String bucketName, String path);
+    Set<String> findExistingPaths(String bucket, Collection<String> paths);
+    String getPresignedDownloadUrl(String bucket, String path, Duration expiry);
+    String getPresignedUploadUrl(String bucket, String path, Duration expiry);
+    String createMultipartUpload(String bucket, String path);
+    UploadedPart uploadPart(String bucket, String path, String uploadId, int partNumber, InputStream dataStream, long size);
+    List<UploadedPart> findAllUploadedParts(String bucket, String path, String uploadId);
+    void completeMultipartUpload(String bucket, String path, String uploadId, List<UploadedPart> parts);
+    void abortMultipartUpload(String bucket, String path, String uploadId);
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package org.fizz_buzz.cloud.repository;
+
+import io.minio.ObjectWriteArgs;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+// objects up to the threshold are sent by a single PUT, bigger ones and ones of unknown size by parts
+@Component
+@PropertySource("classpath:application.properties")
+public class UploadPartPolicy {
+
+    private final long multipartThreshold;
+    private final long partSize;
+    private final long unknownSizePartSize;
+    private final int parallelism;
+
+    public UploadPartPolicy(@Value("${application.upload.multipart-threshold}") DataSize multipartThreshold,
+                            @Value("${application.upload.part-size}") DataSize partSize,
+                            @Value("${application.upload.max-size}") DataSize maxSize,
+                            @Value("${application.upload.parallelism}") int parallelism) {
+
+        if (partSize.toBytes() < ObjectWriteArgs.MIN_MULTIPART_SIZE
+                || partSize.toBytes() > ObjectWriteArgs.MAX_PART_SIZE) {
+            throw new IllegalArgumentException("Part size must be between %d and %d bytes, but was %d"
+                    .formatted(ObjectWriteArgs.MIN_MULTIPART_SIZE, ObjectWriteArgs.MAX_PART_SIZE, partSize.toBytes()));
+        }
+
+        // object at the threshold is sent by a single PUT, which has the same limit as a part,
+        // and the smallest object sent by parts shouldn't be a single part
+        if (multipartThreshold.toBytes() < partSize.toBytes()
+                || multipartThreshold.toBytes() > ObjectWriteArgs.MAX_PART_SIZE) {
+            throw new IllegalArgumentException("Multipart threshold must be between %d and %d bytes, but was %d"
+                    .formatted(partSize.toBytes(), ObjectWriteArgs.MAX_PART_SIZE, multipartThreshold.toBytes()));
+        }
+
+        if (maxSize.toBytes() > ObjectWriteArgs.MAX_OBJECT_SIZE) {
+            throw new IllegalArgumentException("Maximum size must not exceed %d bytes, but was %d"
+                    .formatted(ObjectWriteArgs.MAX_OBJECT_SIZE, maxSize.toBytes()));
+        }
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, but was %d".formatted(parallelism));
+        }
+
+        this.multipartThreshold = multipartThreshold.toBytes();
+        this.partSize = partSize.toBytes();
+        this.unknownSizePartSize = partSize(maxSize.toBytes());
+        this.parallelism = parallelism;
+    }
+
+    // size is -1 if it isn't known
+    public boolean isSinglePart(long size) {
+
+        return size >= 0 && size <= multipartThreshold;
+    }
+
+    // object of unknown size gets part size of the biggest allowed object
+    public long partSize(long size) {
+
+        if (size < 0) {
+            return unknownSizePartSize;
+        }
+
+        return Math.max(partSize, Math.ceilDiv(size, ObjectWriteArgs.MAX_MULTIPART_COUNT));
+    }
+
+    public int parallelism() {
+
+        return parallelism;
+    }
+}
@@ -0,0 +1,28 @@
+package org.fizz_buzz.cloud.repository;
+
+import org.fizz_buzz.cloud.model.UploadSession;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UploadSessionRepository extends CrudRepository<UploadSession, UUID> {
+
+    Optional<UploadSession> findByIdAndUserId(UUID id, Long userId);
+
+    Optional<UploadSession> findByUserIdAndPath(Long userId, String path);
+
+    // rows stay locked until the end of the transaction, concurrent cleanups get other sessions
+    @Query(value = """
+            SELECT * FROM upload_sessions
+            WHERE expires_at < :moment
+            ORDER BY expires_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED""",
+            nativeQuery = true)
+    List<UploadSession> lockExpired(@Param("moment") Instant moment, @Param("limit") int limit);
+}
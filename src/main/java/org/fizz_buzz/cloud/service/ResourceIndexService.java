@@ -0,0 +1,570 @@
+package org.fizz_buzz.cloud.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.fizz_buzz.cloud.dto.ResourceType;
+import org.fizz_buzz.cloud.exception.ResourceNotFound;
+import org.fizz_buzz.cloud.model.IndexedResource;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.model.User;
+import org.fizz_buzz.cloud.repository.IndexedResourceRepository;
+import org.fizz_buzz.cloud.repository.S3Repository;
+import org.fizz_buzz.cloud.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// S3 stays the source of truth, drift is repaired by reconciliation, all paths are technical
+@Slf4j
+@Service
+@PropertySource("classpath:application.properties")
+public class ResourceIndexService {
+
+    private final static String USER_DIRECTORY = "user-%d-files/";
+    private final static int PAGE_SIZE = 1000;
+    private final static int MIN_TRIGRAM_QUERY_LENGTH = 3;
+    // any number not used for other advisory locks of the database
+    private final static long RECONCILIATION_LOCK = 4_190_019L;
+
+    private static final String UPSERT = """
+            INSERT INTO resources (user_id, path, parent, name, size, type, etag, last_modified, indexed_at)
+            VALUES (:userId, :path, :parent, :name, :size, :type, :etag, :lastModified, :indexedAt)
+            ON CONFLICT (user_id, path) DO UPDATE
+            SET size = excluded.size,
+                type = excluded.type,
+                etag = excluded.etag,
+                last_modified = excluded.last_modified,
+                indexed_at = excluded.indexed_at""";
+
+    // notifications are delivered late and out of order, so an entry is never replaced by an older change
+    private static final String UPSERT_IF_NEWER = UPSERT + """
+
+            WHERE resources.last_modified <= excluded.last_modified""";
+
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO resources (user_id, path, parent, name, size, type, etag, last_modified, indexed_at)
+            VALUES (:userId, :path, :parent, :name, :size, :type, :etag, :lastModified, :indexedAt)
+            ON CONFLICT (user_id, path) DO NOTHING""";
+
+    private static final String IS_RECONCILED = "SELECT EXISTS (SELECT 1 FROM resources_index_state)";
+
+    private static final String MARK_RECONCILED = """
+            INSERT INTO resources_index_state (id, reconciled_at)
+            VALUES (1, :reconciledAt)
+            ON CONFLICT (id) DO UPDATE
+            SET reconciled_at = excluded.reconciled_at""";
+
+    private static final String FORGET_RECONCILED = "DELETE FROM resources_index_state";
+
+    @Value("${application.default-bucket-name}")
+    private String defaultBucketName;
+
+    @Value("${application.metadata-index.enabled}")
+    private boolean enabled;
+
+    private final S3Repository s3Repository;
+    private final IndexedResourceRepository indexedResourceRepository;
+    private final UserRepository userRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    // users whose writes the index has missed, they are read from S3 until they are reindexed
+    private final Set<Long> unsyncedUsers = ConcurrentHashMap.newKeySet();
+    private volatile boolean filled;
+
+    public ResourceIndexService(S3Repository s3Repository,
+                                IndexedResourceRepository indexedResourceRepository,
+                                UserRepository userRepository,
+                                NamedParameterJdbcTemplate jdbcTemplate) {
+        this.s3Repository = s3Repository;
+        this.indexedResourceRepository = indexedResourceRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    // writes go to the index as soon as it is enabled, reads only once it is filled with what is already stored
+    public boolean isServing(long userId) {
+
+        return enabled && filled && !unsyncedUsers.contains(userId);
+    }
+
+    public Optional<ResourceMetadata> find(long userId, String path) {
+
+        String relativePath = relative(userId, path);
+
+        // user directory itself is never indexed, it exists while user exists
+        if (relativePath.isEmpty()) {
+            return Optional.of(new ResourceMetadata(path, 0, null, null));
+        }
+
+        return indexedResourceRepository.findById(new IndexedResource.Key(userId, relativePath))
+                .map(resource -> toMetadata(userId, resource));
+    }
+
+    public boolean exists(long userId, String path) {
+
+        return find(userId, path).isPresent();
+    }
+
+    public Set<String> findExistingPaths(long userId, Collection<String> paths) {
+
+        Set<String> existing = new HashSet<>();
+        List<String> relativePaths = new ArrayList<>();
+
+        for (String path : paths) {
+
+            if (relative(userId, path).isEmpty()) {
+                existing.add(path);
+            } else {
+                relativePaths.add(relative(userId, path));
+            }
+        }
+
+        if (!relativePaths.isEmpty()) {
+
+            indexedResourceRepository.findAllByUserIdAndPathIn(userId, relativePaths)
+                    .forEach(resource -> existing.add(USER_DIRECTORY.formatted(userId).concat(resource.getPath())));
+        }
+
+        return existing;
+    }
+
+    public Stream<ResourceMetadata> streamChildren(long userId, String directory, String startAfter) {
+
+        String parent = relative(userId, directory);
+        String firstStartAfter = startAfter == null ? "" : relative(userId, startAfter);
+
+        Iterator<IndexedResource> iterator = new PageIterator<>(firstStartAfter, IndexedResource::getPath,
+                after -> indexedResourceRepository.findAllByUserIdAndParentAndPathGreaterThanOrderByPathAsc(userId,
+                        parent,
+                        after,
+                        Limit.of(PAGE_SIZE)));
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(resource -> toMetadata(userId, resource));
+    }
+
+    // exact matches go first, then names starting with the query, then the rest, each group by path,
+    // queries shorter than a trigram match only names starting with them
+    public Stream<ResourceMetadata> search(long userId, String query, String startAfter) {
+
+        String lowerCaseQuery = query.toLowerCase(Locale.ROOT);
+        String pattern = "%" + lowerCaseQuery.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        String firstStartAfter = startAfter == null ? null : relative(userId, startAfter);
+        Function<String, List<IndexedResource>> pageLoader = lowerCaseQuery.codePointCount(0,
+                lowerCaseQuery.length()) < MIN_TRIGRAM_QUERY_LENGTH
+                ? after -> indexedResourceRepository.searchByNamePrefix(userId,
+                        lowerCaseQuery,
+                        after == null ? -1 : rank(nameOf(after), lowerCaseQuery),
+                        after == null ? "" : after,
+                        PAGE_SIZE)
+                : after -> indexedResourceRepository.searchByName(userId,
+                        lowerCaseQuery,
+                        pattern,
+                        after == null ? -1 : rank(nameOf(after), lowerCaseQuery),
+                        after == null ? "" : after,
+                        PAGE_SIZE);
+
+        Iterator<IndexedResource> iterator = new PageIterator<>(firstStartAfter, IndexedResource::getPath,
+                pageLoader);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(resource -> toMetadata(userId, resource));
+    }
+
+    // index is written after S3, its failure doesn't fail the request, reconciliation repairs the entry
+    public void save(long userId, Collection<ResourceMetadata> resources) {
+
+        if (!enabled) {
+            return;
+        }
+
+        try {
+
+            upsert(userId, resources, now());
+        } catch (DataAccessException e) {
+
+            log.warn("Failed to index resources of user {}", userId, e);
+            unsyncedUsers.add(userId);
+        }
+    }
+
+    public void delete(long userId, String path) {
+
+        if (!enabled) {
+            return;
+        }
+
+        String relativePath = relative(userId, path);
+
+        try {
+
+            if (relativePath.endsWith("/")) {
+                indexedResourceRepository.deleteAllByPrefix(userId, relativePath);
+            } else {
+                indexedResourceRepository.deleteById(new IndexedResource.Key(userId, relativePath));
+            }
+        } catch (DataAccessException e) {
+
+            log.warn("Failed to remove {} from resources index", path, e);
+            unsyncedUsers.add(userId);
+        }
+    }
+
+    // object created bypassing services is added with its missing directories
+    public void applyCreated(long userId, ResourceMetadata resource) {
+
+        if (!enabled) {
+            return;
+        }
+
+        Instant indexedAt = now();
+        String relativePath = relative(userId, resource.path());
+        List<SqlParameterSource> directories = new ArrayList<>();
+
+        for (int i = relativePath.indexOf('/'); i != -1 && i < relativePath.length() - 1;
+             i = relativePath.indexOf('/', i + 1)) {
+
+            directories.add(toRow(userId, new ResourceMetadata(USER_DIRECTORY.formatted(userId)
+                    .concat(relativePath.substring(0, i + 1)), 0, null, resource.lastModified()), indexedAt));
+        }
+
+        try {
+
+            if (!directories.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, directories.toArray(SqlParameterSource[]::new));
+            }
+
+            if (!relativePath.isEmpty()) {
+                jdbcTemplate.update(UPSERT_IF_NEWER, toRow(userId, resource, indexedAt));
+            }
+        } catch (DataAccessException e) {
+
+            log.warn("Failed to index {}", resource.path(), e);
+            unsyncedUsers.add(userId);
+        }
+    }
+
+    // only the entry of the path is removed, and only if it wasn't written again after the removal
+    public void applyRemoved(long userId, String path, ZonedDateTime removedAt) {
+
+        if (!enabled) {
+            return;
+        }
+
+        try {
+
+            indexedResourceRepository.deleteByPathModifiedNotAfter(userId, relative(userId, path),
+                    removedAt.toInstant());
+        } catch (DataAccessException e) {
+
+            log.warn("Failed to remove {} from resources index", path, e);
+            unsyncedUsers.add(userId);
+        }
+    }
+
+    // entries left with an older indexing time are gone from S3 and are removed
+    public void reindex(long userId, String path) {
+
+        if (!enabled) {
+            return;
+        }
+
+        try {
+
+            resync(userId, path);
+        } catch (DataAccessException e) {
+
+            log.warn("Failed to reindex {}", path, e);
+            unsyncedUsers.add(userId);
+        }
+    }
+
+    // writes aren't indexed while the index is disabled, so it is filled again once it is enabled
+    @EventListener(ApplicationReadyEvent.class)
+    public void forgetReconciliation() {
+
+        if (!enabled) {
+            jdbcTemplate.update(FORGET_RECONCILED, Map.of());
+        }
+    }
+
+    // the index enabled over existing objects is filled by one of the nodes, the others wait for it
+    @Scheduled(fixedDelayString = "${application.metadata-index.repair-interval}")
+    public synchronized void repair() {
+
+        if (!enabled) {
+            return;
+        }
+
+        if (!filled) {
+            filled = Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_RECONCILED, Map.of(), Boolean.class))
+                    || reconcileExclusively();
+        }
+
+        for (Long userId : unsyncedUsers) {
+
+            try {
+
+                resync(userId, USER_DIRECTORY.formatted(userId));
+                unsyncedUsers.remove(userId);
+            } catch (Exception e) {
+
+                log.warn("Failed to repair resources index of user {}", userId, e);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${application.metadata-index.reconciliation-cron}")
+    public void reconcile() {
+
+        if (!enabled) {
+            return;
+        }
+
+        if (!reconcileExclusively()) {
+            log.info("Resources index is already being reconciled by another node");
+        }
+    }
+
+    // session advisory lock is held by a connection of its own, while the index is written through the others
+    private boolean reconcileExclusively() {
+
+        return Boolean.TRUE.equals(jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Boolean>) connection -> {
+
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                return false;
+            }
+
+            try {
+
+                for (User user : userRepository.findAll()) {
+
+                    try {
+
+                        resync(user.getId(), USER_DIRECTORY.formatted(user.getId()));
+                        unsyncedUsers.remove(user.getId());
+                    } catch (Exception e) {
+
+                        log.warn("Failed to reconcile resources index of user {}", user.getId(), e);
+                    }
+                }
+
+                jdbcTemplate.update(MARK_RECONCILED, Map.of("reconciledAt", Timestamp.from(now())));
+
+                return true;
+            } finally {
+
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+            }
+        }));
+    }
+
+    private boolean advisoryLock(Connection connection, String query) throws SQLException {
+
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+
+            statement.setLong(1, RECONCILIATION_LOCK);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private void resync(long userId, String path) {
+
+        Instant indexedAt = now();
+
+        if (!path.endsWith("/")) {
+
+            try {
+
+                upsert(userId, List.of(s3Repository.getResourceMetadataByPath(defaultBucketName, path)), indexedAt);
+            } catch (ResourceNotFound e) {
+
+                indexedResourceRepository.deleteById(new IndexedResource.Key(userId, relative(userId, path)));
+            }
+
+            return;
+        }
+
+        try (Stream<ResourceMetadata> resources = s3Repository.streamByPrefix(defaultBucketName, path, true, null)) {
+
+            Iterator<ResourceMetadata> iterator = resources.iterator();
+            List<ResourceMetadata> batch = new ArrayList<>(PAGE_SIZE);
+
+            while (iterator.hasNext()) {
+
+                batch.add(iterator.next());
+
+                if (batch.size() == PAGE_SIZE || !iterator.hasNext()) {
+
+                    upsert(userId, batch, indexedAt);
+                    batch.clear();
+                }
+            }
+        }
+
+        indexedResourceRepository.deleteAllByPrefixIndexedBefore(userId, relative(userId, path), indexedAt);
+    }
+
+    private void upsert(long userId, Collection<ResourceMetadata> resources, Instant indexedAt) {
+
+        SqlParameterSource[] rows = resources.stream()
+                .filter(resource -> !relative(userId, resource.path()).isEmpty())
+                .map(resource -> toRow(userId, resource, indexedAt))
+                .toArray(SqlParameterSource[]::new);
+
+        if (rows.length > 0) {
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+        }
+    }
+
+    private SqlParameterSource toRow(long userId, ResourceMetadata resource, Instant indexedAt) {
+
+        String path = relative(userId, resource.path());
+        boolean directory = path.endsWith("/");
+        String name = nameOf(path);
+
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("path", path)
+                .addValue("parent", path.substring(0, path.length() - name.length() - (directory ? 1 : 0)))
+                .addValue("name", name)
+                .addValue("size", directory ? 0 : resource.size())
+                .addValue("type", (directory ? ResourceType.DIRECTORY : ResourceType.FILE).name())
+                .addValue("etag", resource.etag())
+                .addValue("lastModified", resource.lastModified() == null
+                        ? Timestamp.from(indexedAt)
+                        : Timestamp.from(resource.lastModified().toInstant()))
+                .addValue("indexedAt", Timestamp.from(indexedAt));
+    }
+
+    private ResourceMetadata toMetadata(long userId, IndexedResource resource) {
+
+        return new ResourceMetadata(USER_DIRECTORY.formatted(userId).concat(resource.getPath()),
+                resource.getSize(),
+                resource.getEtag(),
+                resource.getLastModified() == null ? null : resource.getLastModified().atZone(ZoneOffset.UTC));
+    }
+
+    // the same ranking as in the search query
+    private int rank(String name, String lowerCaseQuery) {
+
+        String lowerCaseName = name.toLowerCase(Locale.ROOT);
+
+        if (lowerCaseName.equals(lowerCaseQuery)) {
+            return 0;
+        }
+
+        return lowerCaseName.startsWith(lowerCaseQuery) ? 1 : 2;
+    }
+
+    private String nameOf(String path) {
+
+        String withoutSlash = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+
+        return withoutSlash.substring(withoutSlash.lastIndexOf('/') + 1);
+    }
+
+    // database keeps microseconds, so time is cut to them to be compared with stored one exactly
+    private Instant now() {
+
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private String relative(long userId, String path) {
+
+        return path.substring(USER_DIRECTORY.formatted(userId).length());
+    }
+
+    // every next page starts after the last element of the previous one
+    private static final class PageIterator<T> implements Iterator<T> {
+
+        private final Function<T, String> keyExtractor;
+        private final Function<String, List<T>> pageLoader;
+        private String startAfter;
+        private List<T> page = List.of();
+        private int position;
+        private boolean lastPage;
+
+        private PageIterator(String startAfter, Function<T, String> keyExtractor, Function<String, List<T>> pageLoader) {
+            this.startAfter = startAfter;
+            this.keyExtractor = keyExtractor;
+            this.pageLoader = pageLoader;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (position < page.size()) {
+                return true;
+            }
+
+            if (lastPage) {
+                return false;
+            }
+
+            page = pageLoader.apply(startAfter);
+            position = 0;
+            lastPage = page.size() < PAGE_SIZE;
+
+            return !page.isEmpty();
+        }
+
+        @Override
+        public T next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            T element = page.get(position++);
+            startAfter = keyExtractor.apply(element);
+
+            return element;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package org.fizz_buzz.cloud.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.fizz_buzz.cloud.dto.response.ResourceInfoResponseDTO;
+import org.fizz_buzz.cloud.dto.response.UploadSessionResponseDTO;
+import org.fizz_buzz.cloud.dto.response.UploadedPartResponseDTO;
+import org.fizz_buzz.cloud.event.ResourcesChangedEvent;
+import org.fizz_buzz.cloud.exception.InvalidUploadException;
+import org.fizz_buzz.cloud.exception.ResourceAlreadyExistsException;
+import org.fizz_buzz.cloud.exception.UploadSessionNotFound;
+import org.fizz_buzz.cloud.model.UploadSession;
+import org.fizz_buzz.cloud.model.UploadedPart;
+import org.fizz_buzz.cloud.repository.S3Repository;
+import org.fizz_buzz.cloud.repository.UploadSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// every part is a part of S3 multipart upload, so S3 is the only source of truth about received data
+@Slf4j
+@Service
+@PropertySource("classpath:application.properties")
+public class ResumableUploadService {
+
+    private final static String USER_DIRECTORY = "user-%d-files/";
+    // S3 doesn't allow more parts in a single upload
+    private final static int MAX_PARTS = 10000;
+    private final static int CLEANUP_BATCH_SIZE = 100;
+
+    @Value("${application.default-bucket-name}")
+    private String defaultBucketName;
+
+    @Value("${application.resumable-uploads.part-size}")
+    private DataSize partSize;
+
+    @Value("${application.resumable-uploads.max-size}")
+    private DataSize maxSize;
+
+    @Value("${application.resumable-uploads.expiry}")
+    private Duration expiry;
+
+    private final S3Repository s3Repository;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final S3UserService s3UserService;
+    private final ResourceIndexService resourceIndexService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public ResumableUploadService(S3Repository s3Repository,
+                                  UploadSessionRepository uploadSessionRepository,
+                                  S3UserService s3UserService,
+                                  ResourceIndexService resourceIndexService,
+                                  ApplicationEventPublisher eventPublisher,
+                                  TransactionTemplate transactionTemplate) {
+        this.s3Repository = s3Repository;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.s3UserService = s3UserService;
+        this.resourceIndexService = resourceIndexService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public UploadSessionResponseDTO initiate(long userId, String path, long size) {
+
+        if (size > maxSize.toBytes()) {
+            throw new InvalidUploadException("Upload of %d bytes exceeds limit of %d bytes"
+                    .formatted(size, maxSize.toBytes()));
+        }
+
+        s3UserService.validateNewFile(userId, path);
+
+        uploadSessionRepository.findByUserIdAndPath(userId, path)
+                .ifPresent(existing -> replaceExpired(existing, path));
+
+        UploadSession session = new UploadSession();
+
+        session.setId(UUID.randomUUID());
+        session.setUserId(userId);
+        session.setPath(path);
+        session.setSize(size);
+        // part size grows for big files, so they fit into the parts limit
+        session.setPartSize(Math.max(partSize.toBytes(), Math.ceilDiv(size, MAX_PARTS)));
+        session.setExpiresAt(Instant.now().plus(expiry));
+        session.setUploadId(s3Repository.createMultipartUpload(defaultBucketName, technicalPath(session)));
+
+        // unique index on the path decides between concurrent initiates
+        try {
+
+            return toResponse(uploadSessionRepository.save(session), List.of());
+        } catch (DataIntegrityViolationException e) {
+
+            abortQuietly(session);
+            throw new ResourceAlreadyExistsException(path);
+        }
+    }
+
+    public UploadSessionResponseDTO getStatus(long userId, UUID sessionId) {
+
+        UploadSession session = getSession(userId, sessionId);
+
+        return toResponse(session, s3Repository.findAllUploadedParts(defaultBucketName,
+                technicalPath(session),
+                session.getUploadId()));
+    }
+
+    // size is declared by the request, offset must be a multiple of part size,
+    // and every part except the last one must be exactly part size long
+    public UploadedPartResponseDTO uploadPart(long userId, UUID sessionId, long offset, long size,
+                                              InputStream dataStream) {
+
+        UploadSession session = getSession(userId, sessionId);
+
+        if (offset < 0 || offset >= session.getSize() || offset % session.getPartSize() != 0) {
+            throw new InvalidUploadException("Offset %d is not a start of a part".formatted(offset));
+        }
+
+        long expectedSize = Math.min(session.getPartSize(), session.getSize() - offset);
+
+        // part is passed to S3 while it's received, and S3 requires its length in advance
+        if (size != expectedSize) {
+            throw new InvalidUploadException("Part at offset %d must be %d bytes long"
+                    .formatted(offset, expectedSize));
+        }
+
+        UploadedPart part = s3Repository.uploadPart(defaultBucketName,
+                technicalPath(session),
+                session.getUploadId(),
+                partNumber(session, offset),
+                dataStream,
+                size);
+
+        return new UploadedPartResponseDTO(offset, part.size());
+    }
+
+    public ResourceInfoResponseDTO complete(long userId, UUID sessionId) {
+
+        UploadSession session = getSession(userId, sessionId);
+        List<UploadedPart> parts = s3Repository.findAllUploadedParts(defaultBucketName,
+                technicalPath(session),
+                session.getUploadId());
+
+        long partsCount = Math.ceilDiv(session.getSize(), session.getPartSize());
+
+        // parts are listed by S3 in ascending order of their numbers
+        for (int i = 0; i < partsCount; i++) {
+
+            long offset = i * session.getPartSize();
+
+            if (i >= parts.size() || parts.get(i).number() != i + 1) {
+                throw new InvalidUploadException("Upload isn't finished, part at offset %d is missing"
+                        .formatted(offset));
+            }
+        }
+
+        // parent directory could be deleted while parts were uploaded
+        s3UserService.validateNewFile(userId, session.getPath());
+
+        // file is created only if it still doesn't exist
+        try {
+
+            s3Repository.completeMultipartUpload(defaultBucketName,
+                    technicalPath(session),
+                    session.getUploadId(),
+                    parts);
+        } catch (ResourceAlreadyExistsException e) {
+
+            throw new ResourceAlreadyExistsException(session.getPath());
+        }
+
+        uploadSessionRepository.delete(session);
+        eventPublisher.publishEvent(new ResourcesChangedEvent(defaultBucketName, List.of(technicalPath(session))));
+        resourceIndexService.reindex(userId, technicalPath(session));
+
+        return s3UserService.getResource(userId, session.getPath());
+    }
+
+    public void abort(long userId, UUID sessionId) {
+
+        abort(getSession(userId, sessionId));
+    }
+
+    // every replica runs the cleanup, sessions locked by one of them are skipped by the others
+    @Scheduled(fixedDelayString = "${application.resumable-uploads.cleanup-interval}")
+    public void abortExpired() {
+
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status -> abortExpiredBatch()))) {
+        }
+    }
+
+    private boolean abortExpiredBatch() {
+
+        List<UploadSession> sessions = uploadSessionRepository.lockExpired(Instant.now(), CLEANUP_BATCH_SIZE);
+        int aborted = 0;
+
+        for (UploadSession session : sessions) {
+
+            try {
+
+                abort(session);
+                aborted++;
+            } catch (Exception e) {
+
+                log.warn("Failed to abort expired upload session {}", session.getId(), e);
+            }
+        }
+
+        // sessions which failed to be aborted are selected again, so the cleanup stops once nothing is aborted
+        return sessions.size() == CLEANUP_BATCH_SIZE && aborted > 0;
+    }
+
+    private void abort(UploadSession session) {
+
+        s3Repository.abortMultipartUpload(defaultBucketName, technicalPath(session), session.getUploadId());
+        uploadSessionRepository.delete(session);
+    }
+
+    // expired session, which the cleanup hasn't reached yet, doesn't hold the path
+    private void replaceExpired(UploadSession session, String path) {
+
+        if (session.getExpiresAt().isAfter(Instant.now())) {
+            throw new ResourceAlreadyExistsException(path);
+        }
+
+        try {
+
+            abort(session);
+        } catch (Exception e) {
+
+            log.warn("Failed to abort expired upload session {}", session.getId(), e);
+            throw new ResourceAlreadyExistsException(path);
+        }
+    }
+
+    private void abortQuietly(UploadSession session) {
+
+        try {
+
+            s3Repository.abortMultipartUpload(defaultBucketName, technicalPath(session), session.getUploadId());
+        } catch (Exception e) {
+
+            log.warn("Failed to abort multipart upload {} of {}", session.getUploadId(), technicalPath(session), e);
+        }
+    }
+
+    private UploadSession getSession(long userId, UUID sessionId) {
+
+        return uploadSessionRepository.findByIdAndUserId(sessionId, userId)
+                .filter(session -> session.getExpiresAt().isAfter(Instant.now()))
+                .orElseThrow(() -> new UploadSessionNotFound(sessionId));
+    }
+
+    private UploadSessionResponseDTO toResponse(UploadSession session, List<UploadedPart> parts) {
+
+        return new UploadSessionResponseDTO(session.getId(),
+                session.getPath(),
+                session.getSize(),
+                session.getPartSize(),
+                session.getExpiresAt(),
+                parts.stream()
+                        .map(part -> new UploadedPartResponseDTO((part.number() - 1) * session.getPartSize(),
+                                part.size()))
+                        .toList());
+    }
+
+    private int partNumber(UploadSession session, long offset) {
+
+        return Math.toIntExact(offset / session.getPartSize()) + 1;
+    }
+
+    private String technicalPath(UploadSession session) {
+
+        return USER_DIRECTORY.formatted(session.getUserId()).concat(session.getPath());
+    }
+}
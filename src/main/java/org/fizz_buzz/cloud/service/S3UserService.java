@@ -1,15 +1,31 @@
 package org.fizz_buzz.cloud.service;
 
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
+import org.fizz_buzz.cloud.concurrent.BulkOperationExecutor;
+import org.fizz_buzz.cloud.concurrent.BulkOperationFailure;
+import org.fizz_buzz.cloud.concurrent.BulkOperationResult;
+import org.fizz_buzz.cloud.dto.ArchiveCompression;
+import org.fizz_buzz.cloud.dto.ResourceInfoPage;
 import org.fizz_buzz.cloud.dto.ResourceType;
+import org.fizz_buzz.cloud.dto.response.PresignedUrlResponseDTO;
 import org.fizz_buzz.cloud.dto.response.ResourceInfoResponseDTO;
+import org.fizz_buzz.cloud.event.ResourcesChangedEvent;
 import org.fizz_buzz.cloud.exception.DirectoryNotExistException;
+import org.fizz_buzz.cloud.exception.FeatureDisabledException;
+import org.fizz_buzz.cloud.exception.InvalidUploadException;
+import org.fizz_buzz.cloud.exception.NestedResourceException;
+import org.fizz_buzz.cloud.exception.NotFileException;
 import org.fizz_buzz.cloud.exception.ResourceAlreadyExistsException;
 import org.fizz_buzz.cloud.exception.ResourceNotFound;
+import org.fizz_buzz.cloud.exception.ResourceTypeMismatchException;
 import org.fizz_buzz.cloud.exception.S3RepositoryException;
-import org.fizz_buzz.cloud.model.Resource;
+import org.fizz_buzz.cloud.model.FilePart;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.repository.AsyncS3Repository;
 import org.fizz_buzz.cloud.repository.S3Repository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -22,27 +38,65 @@ import org.fizz_buzz.cloud.exception.NotDirectoryException;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @PropertySource("classpath:application.properties")
 public class S3UserService {
 
     private final static String USER_DIRECTORY = "user-%d-files/";
+    private final static int COPY_BUFFER_SIZE = 64 * 1024;
 
     @Value("${application.default-bucket-name}")
     private String defaultBucketName;
 
-    private final S3Repository s3Repository;
+    @Value("${application.upload.files-parallelism}")
+    private int uploadParallelism;
+
+    @Value("${application.presigned-urls.enabled}")
+    private boolean presignedUrlsEnabled;
+
+    @Value("${application.presigned-urls.expiry}")
+    private Duration presignedUrlsExpiry;
 
-    public S3UserService(S3Repository s3Repository) {
+    @Value("${application.presigned-urls.upload-expiry}")
+    private Duration presignedUploadUrlsExpiry;
+
+    private final S3Repository s3Repository;
+    private final ZipArchiveWriter zipArchiveWriter;
+    private final BulkOperationExecutor bulkOperationExecutor;
+    private final ResourceIndexService resourceIndexService;
+    private final ApplicationEventPublisher eventPublisher;
+    // present only when the async adapter is chosen
+    private final AsyncS3Repository asyncS3Repository;
+
+    public S3UserService(S3Repository s3Repository,
+                         ZipArchiveWriter zipArchiveWriter,
+                         BulkOperationExecutor bulkOperationExecutor,
+                         ResourceIndexService resourceIndexService,
+                         ApplicationEventPublisher eventPublisher,
+                         Optional<AsyncS3Repository> asyncS3Repository) {
         this.s3Repository = s3Repository;
+        this.zipArchiveWriter = zipArchiveWriter;
+        this.bulkOperationExecutor = bulkOperationExecutor;
+        this.resourceIndexService = resourceIndexService;
+        this.eventPublisher = eventPublisher;
+        this.asyncS3Repository = asyncS3Repository.orElse(null);
     }
 
     public void createUserBucketIfNotExist() {
@@ -56,8 +110,7 @@ public class S3UserService {
 
         try {
 
-            var resource = s3Repository.getResourceByPath(defaultBucketName,
-                    USER_DIRECTORY.formatted(userId).concat(resourcePath));
+            var resource = getMetadata(userId, USER_DIRECTORY.formatted(userId).concat(resourcePath));
 
             return resourceToResourceInfoResponseDTO(userId, resource);
         } catch (ResourceNotFound e) {
@@ -67,72 +120,179 @@ public class S3UserService {
 
     public void deleteResource(long userId, String resourcePath) {
 
-        if (!s3Repository.isObjectExists(defaultBucketName, USER_DIRECTORY.formatted(userId).concat(resourcePath))) {
+        if (!exists(userId, USER_DIRECTORY.formatted(userId).concat(resourcePath))) {
 
             throw new ResourceNotFound(resourcePath);
         }
 
         s3Repository.deleteResource(defaultBucketName, USER_DIRECTORY.formatted(userId).concat(resourcePath));
+        resourcesChanged(List.of(USER_DIRECTORY.formatted(userId).concat(resourcePath)));
+        resourceIndexService.delete(userId, USER_DIRECTORY.formatted(userId).concat(resourcePath));
     }
 
     public void createUserDirectory(long userId) {
 
-        s3Repository.createDirectory(defaultBucketName, USER_DIRECTORY.formatted(userId));
+        // folder may be left from a previous attempt of registration
+        s3Repository.createDirectories(defaultBucketName, List.of(USER_DIRECTORY.formatted(userId)));
+        resourcesChanged(List.of(USER_DIRECTORY.formatted(userId)));
     }
 
-    public StreamingResponseBody downloadResource(long userId, String resourcePath) {
+    public ResourceMetadata getFileMetadata(long userId, String resourcePath) {
+
+        if (isDirectory(resourcePath)) {
+            throw new ResourceNotFound(resourcePath);
+        }
+
+        try {
+
+            return getMetadata(userId, USER_DIRECTORY.formatted(userId).concat(resourcePath));
+        } catch (ResourceNotFound e) {
+            throw new ResourceNotFound(resourcePath);
+        }
+    }
+
+    // existence of the file is checked by getFileMetadata
+    public StreamingResponseBody downloadFile(long userId, String resourcePath) {
+
+        String technicalPath = USER_DIRECTORY.formatted(userId).concat(resourcePath);
+
+        return outputStream -> {
+
+            try (InputStream resourceStream = s3Repository.getResourceByPath(defaultBucketName, technicalPath)
+                    .dataStream()) {
+
+                IOUtils.copy(resourceStream, outputStream, COPY_BUFFER_SIZE);
+            }
+        };
+    }
+
+    public StreamingResponseBody downloadFile(long userId, String resourcePath, long offset, long length) {
 
-        // Needed for correct queries to Minio
         String technicalPath = USER_DIRECTORY.formatted(userId).concat(resourcePath);
 
-        List<Resource> resources = new ArrayList<>();
-        List<String> resourcesNames = s3Repository.findAllNamesByPrefix(defaultBucketName, technicalPath, true);
+        return outputStream -> {
+
+            try (InputStream resourceStream = s3Repository.getResourceByPath(defaultBucketName,
+                    technicalPath,
+                    offset,
+                    length).dataStream()) {
+
+                IOUtils.copy(resourceStream, outputStream, COPY_BUFFER_SIZE);
+            }
+        };
+    }
+
+    public PresignedUrlResponseDTO getPresignedDownloadUrl(long userId, String resourcePath) {
 
-        for (String resourcesName : resourcesNames) {
-            resources.add(s3Repository.getResourceByPath(defaultBucketName, resourcesName));
+        if (!presignedUrlsEnabled) {
+            throw new FeatureDisabledException("Presigned URLs mode");
         }
 
-        // redundantOffset needed to cut unnecessary information about user directory and directories
-        // that higher than target directory
-        Path entirePath = Paths.get(USER_DIRECTORY.formatted(userId).concat(resourcePath));
+        // checks that file exists
+        getFileMetadata(userId, resourcePath);
 
-        int redundantOffset = technicalPath.length() - entirePath.getFileName().toString().length() - 1;
+        Instant expiresAt = Instant.now().plus(presignedUrlsExpiry);
 
-        if (resources.size() == 1) {
-            return outputStream -> {
-                Resource resource = resources.getFirst();
+        return new PresignedUrlResponseDTO(s3Repository.getPresignedDownloadUrl(defaultBucketName,
+                USER_DIRECTORY.formatted(userId).concat(resourcePath),
+                presignedUrlsExpiry), expiresAt);
+    }
 
-                try (InputStream resourceStream = resource.dataStream()) {
+    // URL can't require If-None-Match, a file created after the check is overwritten,
+    // unless the client sends the header itself
+    public PresignedUrlResponseDTO getPresignedUploadUrl(long userId, String resourcePath) {
 
-                    IOUtils.copy(resourceStream, outputStream, 1024);
-                } catch (IOException e) {
+        if (!presignedUrlsEnabled) {
+            throw new FeatureDisabledException("Presigned URLs mode");
+        }
 
-                    throw new RuntimeException(e);
-                }
-            };
-        } else {
-            return outputStream -> {
-                ZipEntry zipEntry;
+        validateNewFile(userId, resourcePath);
 
-                try (ZipOutputStream zos = new ZipOutputStream(outputStream)) {
+        Instant expiresAt = Instant.now().plus(presignedUploadUrlsExpiry);
 
-                    for (Resource resource : resources) {
+        return new PresignedUrlResponseDTO(s3Repository.getPresignedUploadUrl(defaultBucketName,
+                USER_DIRECTORY.formatted(userId).concat(resourcePath),
+                presignedUploadUrlsExpiry), expiresAt);
+    }
 
-                        try (InputStream resourceStream = resource.dataStream()) {
+    // file written by presigned URL bypasses this service, so caches and the index learn about it here at once,
+    // bucket notifications and reconciliation do the same for clients which don't confirm
+    public ResourceInfoResponseDTO confirmPresignedUpload(long userId, String resourcePath) {
 
-                            zipEntry = new ZipEntry(resource.path().substring(redundantOffset));
-                            zos.putNextEntry(zipEntry);
+        if (!presignedUrlsEnabled) {
+            throw new FeatureDisabledException("Presigned URLs mode");
+        }
 
-                            if (!isDirectory(resource.path())) {
-                                IOUtils.copy(resourceStream, zos, 1024);
-                            }
+        if (resourcePath.endsWith("/")) {
+            throw new NotFileException(resourcePath);
+        }
 
-                            zos.closeEntry();
-                        }
-                    }
-                }
-            };
+        String technicalPath = USER_DIRECTORY.formatted(userId).concat(resourcePath);
+
+        // metadata of the overwritten file may be cached
+        resourcesChanged(List.of(technicalPath));
+
+        ResourceMetadata resource;
+
+        try {
+
+            resource = s3Repository.getResourceMetadataByPath(defaultBucketName, technicalPath);
+        } catch (ResourceNotFound e) {
+
+            throw new ResourceNotFound(resourcePath);
         }
+
+        resourceIndexService.applyCreated(userId, resource);
+
+        return resourceToResourceInfoResponseDTO(userId, resource);
+    }
+
+    // for uploads which write the file bypassing this service
+    public void validateNewFile(long userId, String resourcePath) {
+
+        if (resourcePath.endsWith("/")) {
+            throw new NotFileException(resourcePath);
+        }
+
+        String technicalPath = USER_DIRECTORY.formatted(userId).concat(resourcePath);
+        String parentPath = resourcePath.substring(0, resourcePath.lastIndexOf('/') + 1);
+
+        if (exists(userId, technicalPath)) {
+            throw new ResourceAlreadyExistsException(resourcePath);
+        }
+
+        if (!exists(userId, USER_DIRECTORY.formatted(userId).concat(parentPath))) {
+            throw new DirectoryNotExistException(parentPath);
+        }
+    }
+
+    public StreamingResponseBody downloadResource(long userId, String resourcePath, ArchiveCompression compression) {
+
+        // Needed for correct queries to Minio
+        String technicalPath = USER_DIRECTORY.formatted(userId).concat(resourcePath);
+
+        // existence is checked before the response is started, so client still can get an error status
+        if (!exists(userId, technicalPath)) {
+            throw new ResourceNotFound(resourcePath);
+        }
+
+        if (!isDirectory(resourcePath)) {
+            // object is opened only when response is written
+            return downloadFile(userId, resourcePath);
+        }
+
+        // redundantOffset needed to cut unnecessary information about user directory and directories
+        // that higher than target directory
+        Path entirePath = Paths.get(technicalPath);
+
+        int redundantOffset = technicalPath.length() - entirePath.getFileName().toString().length() - 1;
+
+        // objects are listed lazily while archive is written, so the first bytes are sent at once
+        return outputStream -> zipArchiveWriter.write(outputStream,
+                defaultBucketName,
+                s3Repository.streamByPrefix(defaultBucketName, technicalPath, true, null),
+                redundantOffset,
+                compression);
     }
 
     public ResourceInfoResponseDTO moveResource(long userId, String oldPath, String newPath) {
@@ -140,62 +300,141 @@ public class S3UserService {
         String oldTechnicalPath = USER_DIRECTORY.formatted(userId).concat(oldPath);
         String newTechnicalPath = USER_DIRECTORY.formatted(userId).concat(newPath);
 
-        if (!s3Repository.isObjectExists(defaultBucketName, oldTechnicalPath)) {
+        validateTransfer(userId, oldPath, oldTechnicalPath, newPath, newTechnicalPath);
+
+        try {
+
+            s3Repository.copyResource(defaultBucketName, oldTechnicalPath, newTechnicalPath);
+            s3Repository.deleteResource(defaultBucketName, oldTechnicalPath);
+        } finally {
 
-            throw new ResourceNotFound(oldPath);
+            resourcesChanged(List.of(oldTechnicalPath, newTechnicalPath));
         }
 
-        if (s3Repository.isObjectExists(defaultBucketName, newTechnicalPath)) {
+        resourceIndexService.delete(userId, oldTechnicalPath);
+        resourceIndexService.reindex(userId, newTechnicalPath);
+
+        return resourceToResourceInfoResponseDTO(userId,
+                s3Repository.getResourceMetadataByPath(defaultBucketName, newTechnicalPath));
+    }
+
+    // with the async adapter no thread waits for S3 requests, with the blocking one the move is done in place
+    public CompletableFuture<ResourceInfoResponseDTO> moveResourceAsync(long userId, String oldPath, String newPath) {
 
-            throw new ResourceAlreadyExistsException(newPath);
+        if (asyncS3Repository == null) {
+            return CompletableFuture.completedFuture(moveResource(userId, oldPath, newPath));
         }
 
-        Resource resource;
+        String oldTechnicalPath = USER_DIRECTORY.formatted(userId).concat(oldPath);
+        String newTechnicalPath = USER_DIRECTORY.formatted(userId).concat(newPath);
 
-        if (isDirectory(oldPath)) {
+        return validateTransferAsync(userId, oldPath, oldTechnicalPath, newPath, newTechnicalPath)
+                .thenCompose(ignored -> asyncS3Repository.copyResourceAsync(defaultBucketName,
+                                oldTechnicalPath, newTechnicalPath)
+                        .thenRunAsync(() -> s3Repository.deleteResource(defaultBucketName, oldTechnicalPath),
+                                bulkOperationExecutor.continuations())
+                        .whenCompleteAsync((copied, e) -> resourcesChanged(List.of(oldTechnicalPath,
+                                newTechnicalPath)), bulkOperationExecutor.continuations()))
+                .thenRunAsync(() -> {
+
+                    resourceIndexService.delete(userId, oldTechnicalPath);
+                    resourceIndexService.reindex(userId, newTechnicalPath);
+                }, bulkOperationExecutor.continuations())
+                .thenCompose(ignored -> asyncS3Repository.getResourceMetadataByPathAsync(defaultBucketName,
+                        newTechnicalPath))
+                .thenApply(resource -> resourceToResourceInfoResponseDTO(userId, resource));
+    }
 
-            List<String> names = s3Repository.findAllNamesByPrefix(defaultBucketName, oldTechnicalPath, true);
+    public ResourceInfoResponseDTO copyResource(long userId, String sourcePath, String targetPath) {
 
-            for (String name : names) {
+        String sourceTechnicalPath = USER_DIRECTORY.formatted(userId).concat(sourcePath);
+        String targetTechnicalPath = USER_DIRECTORY.formatted(userId).concat(targetPath);
 
-                resource = s3Repository.getResourceByPath(defaultBucketName, name);
-                s3Repository.saveResource(defaultBucketName,
-                        name.replace(oldTechnicalPath, newTechnicalPath),
-                        resource.dataStream());
-            }
-        } else {
+        validateTransfer(userId, sourcePath, sourceTechnicalPath, targetPath, targetTechnicalPath);
 
-            resource = s3Repository.getResourceByPath(defaultBucketName, oldTechnicalPath);
-            s3Repository.saveResource(defaultBucketName, newTechnicalPath, resource.dataStream());
+        // objects are copied inside S3 in parallel, data doesn't go through application
+        try {
+
+            s3Repository.copyResource(defaultBucketName, sourceTechnicalPath, targetTechnicalPath);
+        } finally {
+
+            resourcesChanged(List.of(targetTechnicalPath));
         }
 
-        s3Repository.deleteResource(defaultBucketName, oldTechnicalPath);
+        resourceIndexService.reindex(userId, targetTechnicalPath);
 
-        resource = s3Repository.getResourceByPath(defaultBucketName, newTechnicalPath);
+        return resourceToResourceInfoResponseDTO(userId,
+                s3Repository.getResourceMetadataByPath(defaultBucketName, targetTechnicalPath));
+    }
 
-        return resourceToResourceInfoResponseDTO(userId, resource);
+    // with the async adapter no thread waits for S3 requests, with the blocking one the copy is done in place
+    public CompletableFuture<ResourceInfoResponseDTO> copyResourceAsync(long userId, String sourcePath,
+                                                                        String targetPath) {
+
+        if (asyncS3Repository == null) {
+            return CompletableFuture.completedFuture(copyResource(userId, sourcePath, targetPath));
+        }
+
+        String sourceTechnicalPath = USER_DIRECTORY.formatted(userId).concat(sourcePath);
+        String targetTechnicalPath = USER_DIRECTORY.formatted(userId).concat(targetPath);
+
+        return validateTransferAsync(userId, sourcePath, sourceTechnicalPath, targetPath, targetTechnicalPath)
+                .thenCompose(ignored -> asyncS3Repository.copyResourceAsync(defaultBucketName,
+                                sourceTechnicalPath, targetTechnicalPath)
+                        .whenCompleteAsync((copied, e) -> resourcesChanged(List.of(targetTechnicalPath)),
+                                bulkOperationExecutor.continuations()))
+                .thenRunAsync(() -> resourceIndexService.reindex(userId, targetTechnicalPath),
+                        bulkOperationExecutor.continuations())
+                .thenCompose(ignored -> asyncS3Repository.getResourceMetadataByPathAsync(defaultBucketName,
+                        targetTechnicalPath))
+                .thenApply(resource -> resourceToResourceInfoResponseDTO(userId, resource));
     }
 
     public List<ResourceInfoResponseDTO> searchResource(long userId, String query) {
 
-        String userDirectory = USER_DIRECTORY.formatted(userId);
+        return searchResource(userId, query, null, null).resources();
+    }
 
-        return s3Repository.findAllNamesByPrefix(defaultBucketName, USER_DIRECTORY.formatted(userId), true)
-                .stream()
-                .filter(name -> name.substring(userDirectory.length()).toLowerCase().contains(query.toLowerCase()))
-                .map(name -> s3Repository.getResourceByPath(defaultBucketName, name))
-                .map(resource -> resourceToResourceInfoResponseDTO(userId, resource))
-                .collect(Collectors.toList());
+    public ResourceInfoPage searchResource(long userId, String query, String cursor, Integer limit) {
+
+        return toPage(userId, searchResources(userId, query, cursor), limit);
     }
 
+    public Stream<ResourceInfoResponseDTO> streamSearchResult(long userId, String query, String cursor, Integer limit) {
+
+        return limit(searchResources(userId, query, cursor), limit)
+                .map(resource -> resourceToResourceInfoResponseDTO(userId, resource));
+    }
+
+    // failure of one file doesn't stop the others, it's reported in the result of this file
     public List<ResourceInfoResponseDTO> upload(long userId, String uploadPath, MultipartFile[] files) {
 
         String technicalPath = USER_DIRECTORY.formatted(userId).concat(uploadPath);
-        List<ResourceInfoResponseDTO> response = new ArrayList<>();
+
+        if (!uploadPath.isBlank() && !isDirectory(uploadPath)) {
+            throw new DirectoryNotExistException(uploadPath);
+        }
+
+        // all paths are checked at once, with a few listings instead of a request per path
+        Set<String> checkedPaths = new HashSet<>();
+
+        if (!uploadPath.isBlank()) {
+            checkedPaths.add(technicalPath);
+        }
+
+        for (MultipartFile file : files) {
+
+            if (file.getOriginalFilename() != null) {
+
+                checkedPaths.add(technicalPath.concat(file.getOriginalFilename()));
+                checkedPaths.addAll(ancestorDirectories(technicalPath, file.getOriginalFilename()));
+            }
+        }
+
+        Set<String> existingPaths = findExistingPaths(userId, checkedPaths);
 
         // uploading path validation
-        if (!uploadPath.isBlank() &&
-                (!isDirectory(uploadPath) || !s3Repository.isObjectExists(defaultBucketName, technicalPath))) {
+        if (!uploadPath.isBlank() && !existingPaths.contains(technicalPath)) {
             throw new DirectoryNotExistException(uploadPath);
         }
 
@@ -207,57 +446,200 @@ public class S3UserService {
             if (file.getOriginalFilename() != null) {
 
                 // resource validation
-                if (s3Repository.isObjectExists(defaultBucketName, technicalPath.concat(file.getOriginalFilename()))) {
+                if (existingPaths.contains(technicalPath.concat(file.getOriginalFilename()))) {
                     throw new ResourceAlreadyExistsException(file.getOriginalFilename());
                 }
 
-                for (int i = 0; i < file.getOriginalFilename().length(); i++) {
-
-                    if (file.getOriginalFilename().charAt(i) == '/') {
+                for (String directory : ancestorDirectories(technicalPath, file.getOriginalFilename())) {
 
-                        String directory = technicalPath.concat(file.getOriginalFilename().substring(0, i + 1));
-
-                        // do not allow upload directories that already exists
-                        if (s3Repository.isObjectExists(defaultBucketName, directory)) {
-
-                            throw new ResourceAlreadyExistsException(file.getOriginalFilename().substring(0, i + 1));
-                        } else {
-                            directories.add(directory);
-                        }
+                    // do not allow upload directories that already exists
+                    if (existingPaths.contains(directory)) {
+                        throw new ResourceAlreadyExistsException(directory.substring(technicalPath.length()));
                     }
-                }
 
-                if (isDirectory(file.getOriginalFilename())) {
-                    directories.add(file.getOriginalFilename());
+                    directories.add(directory);
                 }
             }
         }
 
-        // crating nonexistent directories
-        for (String directory : directories) {
+        List<String> changedPaths = new ArrayList<>(directories);
+
+        for (MultipartFile file : files) {
 
-            if (!s3Repository.isObjectExists(defaultBucketName, directory)) {
-                s3Repository.createDirectory(defaultBucketName, directory);
+            if (file.getOriginalFilename() != null) {
+                changedPaths.add(technicalPath.concat(file.getOriginalFilename()));
             }
         }
 
-        // file uploading
-        for (MultipartFile file : files) {
+        ResourceInfoResponseDTO[] response = new ResourceInfoResponseDTO[files.length];
+        ResourceMetadata[] saved = new ResourceMetadata[files.length];
+        BulkOperationResult<Integer> result;
 
-            if (file.getOriginalFilename() != null) {
+        try {
 
-                try (InputStream dataStream = file.getInputStream()) {
+            // crating nonexistent directories, files can't be placed without them
+            s3Repository.createDirectories(defaultBucketName, directories);
 
-                    s3Repository.saveResource(defaultBucketName,
-                            technicalPath.concat(file.getOriginalFilename()),
-                            dataStream);
-                    response.add(resourceToResourceInfoResponseDTO(userId, s3Repository.getResourceByPath(defaultBucketName,
-                            technicalPath.concat(file.getOriginalFilename()))));
-                } catch (Exception e) {
+            // file uploading
+            result = bulkOperationExecutor.execute(IntStream.range(0, files.length)
+                            .filter(i -> files[i].getOriginalFilename() != null)
+                            .boxed(),
+                    i -> {
+
+                        MultipartFile file = files[i];
+                        String technicalName = technicalPath.concat(file.getOriginalFilename());
+
+                        if (!isDirectory(technicalName)) {
+
+                            try (InputStream dataStream = file.getInputStream()) {
+
+                                s3Repository.saveResource(defaultBucketName,
+                                        technicalName,
+                                        dataStream,
+                                        file.getSize(),
+                                        file.getContentType());
+                            }
+                        }
+
+                        // index serves ETag and Last-Modified of the file, otherwise only size is needed
+                        saved[i] = resourceIndexService.isEnabled() && !isDirectory(technicalName)
+                                ? s3Repository.getResourceMetadataByPath(defaultBucketName, technicalName)
+                                : new ResourceMetadata(technicalName,
+                                        isDirectory(technicalName) ? 0 : file.getSize(),
+                                        null,
+                                        null);
+                        response[i] = resourceToResourceInfoResponseDTO(userId, saved[i]);
+                    },
+                    uploadParallelism);
+        } finally {
+
+            resourcesChanged(changedPaths);
+        }
+
+        for (BulkOperationFailure<Integer> failure : result.failures()) {
+
+            String name = files[failure.item()].getOriginalFilename();
+            String technicalName = technicalPath.concat(name);
+
+            response[failure.item()] = resourceToResourceInfoResponseDTO(userId,
+                            new ResourceMetadata(technicalName, files[failure.item()].getSize(), null, null))
+                    .withError(uploadError(name, failure.cause()));
+        }
+
+        resourceIndexService.save(userId, Stream.concat(directories.stream()
+                                .map(directory -> new ResourceMetadata(directory, 0, null, null)),
+                        Arrays.stream(saved).filter(Objects::nonNull))
+                .toList());
+
+        return Arrays.stream(response)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private String uploadError(String name, Throwable cause) {
+
+        // file could be created by a concurrent request after validation
+        if (cause instanceof ResourceAlreadyExistsException) {
+
+            log.debug("File {} was created concurrently", name);
+            return new ResourceAlreadyExistsException(name).getMessage();
+        }
 
-                    throw new S3RepositoryException(e);
+        if (cause instanceof InvalidUploadException) {
+
+            log.debug("File {} is rejected: {}", name, cause.getMessage());
+            return cause.getMessage();
+        }
+
+        log.warn("Failed to upload file {}", name, cause);
+
+        return "Upload failed";
+    }
+
+    // Files are validated and written one at a time, as they arrive, because the next file
+    // can't be read before the current one is fully consumed
+    public List<ResourceInfoResponseDTO> upload(long userId, String uploadPath, Iterator<FilePart> files) {
+
+        String technicalPath = USER_DIRECTORY.formatted(userId).concat(uploadPath);
+        List<ResourceInfoResponseDTO> response = new ArrayList<>();
+
+        // uploading path validation
+        if (!uploadPath.isBlank() &&
+                (!isDirectory(uploadPath) || !exists(userId, technicalPath))) {
+            throw new DirectoryNotExistException(uploadPath);
+        }
+
+        // directories created by this upload, so files uploaded next can be placed into them
+        Set<String> createdDirectories = new HashSet<>();
+
+        while (files.hasNext()) {
+
+            FilePart file = files.next();
+            String technicalName = technicalPath.concat(file.name());
+
+            List<String> newDirectories = ancestorDirectories(technicalPath, file.name())
+                    .stream()
+                    .filter(directory -> !createdDirectories.contains(directory))
+                    .toList();
+
+            List<String> checkedPaths = new ArrayList<>(newDirectories);
+
+            // file is written only if it doesn't exist, so it isn't checked in advance
+            if (isDirectory(file.name())) {
+                checkedPaths.add(technicalName);
+            }
+
+            Set<String> existingPaths = findExistingPaths(userId, checkedPaths);
+
+            // resource validation, directory entry may come after files placed into it
+            if (existingPaths.contains(technicalName) && !createdDirectories.contains(technicalName)) {
+                throw new ResourceAlreadyExistsException(file.name());
+            }
+
+            for (String directory : newDirectories) {
+
+                // do not allow upload directories that already exists
+                if (existingPaths.contains(directory)) {
+                    throw new ResourceAlreadyExistsException(directory.substring(technicalPath.length()));
                 }
             }
+
+            List<String> changedPaths = new ArrayList<>(newDirectories);
+
+            changedPaths.add(technicalName);
+
+            try {
+
+                s3Repository.createDirectories(defaultBucketName, newDirectories);
+                createdDirectories.addAll(newDirectories);
+
+                if (!isDirectory(file.name())) {
+
+                    try (InputStream dataStream = file.dataStream()) {
+
+                        s3Repository.saveResource(defaultBucketName, technicalName, dataStream, file.size(),
+                                file.contentType());
+                    } catch (ResourceAlreadyExistsException e) {
+
+                        throw new ResourceAlreadyExistsException(file.name());
+                    } catch (IOException e) {
+
+                        throw new S3RepositoryException(e);
+                    }
+                }
+            } finally {
+
+                resourcesChanged(changedPaths);
+            }
+
+            ResourceMetadata resource = s3Repository.getResourceMetadataByPath(defaultBucketName, technicalName);
+
+            resourceIndexService.save(userId, Stream.concat(newDirectories.stream()
+                                    .map(directory -> new ResourceMetadata(directory, 0, null, null)),
+                            Stream.of(resource))
+                    .toList());
+
+            response.add(resourceToResourceInfoResponseDTO(userId, resource));
         }
 
         return response;
@@ -265,45 +647,203 @@ public class S3UserService {
 
     public List<ResourceInfoResponseDTO> getDirectory(long userId, String path) {
 
+        return getDirectory(userId, path, null, null).resources();
+    }
+
+    public ResourceInfoPage getDirectory(long userId, String path, String cursor, Integer limit) {
+
+        return toPage(userId, directoryResources(userId, path, cursor), limit);
+    }
+
+    public Stream<ResourceInfoResponseDTO> streamDirectory(long userId, String path, String cursor, Integer limit) {
+
+        return limit(directoryResources(userId, path, cursor), limit)
+                .map(resource -> resourceToResourceInfoResponseDTO(userId, resource));
+    }
+
+    public ResourceInfoResponseDTO createDirectory(long userId, String path) {
+
+        if (!isDirectory(path)) {
+            throw new NotDirectoryException(path);
+        }
+
+        String technicalName = USER_DIRECTORY.formatted(userId).concat(path);
+
+        // directory is created only if it doesn't exist, without checking it in advance
+        // missing parents are created along with directory
+        List<String> directories = ancestorDirectories(USER_DIRECTORY.formatted(userId), path);
+
+        try {
+
+            s3Repository.createDirectory(defaultBucketName, technicalName);
+        } catch (ResourceAlreadyExistsException e) {
+
+            throw new ResourceAlreadyExistsException(path);
+        } finally {
+
+            resourcesChanged(directories);
+        }
+
+        resourceIndexService.save(userId, directories
+                .stream()
+                .map(directory -> new ResourceMetadata(directory, 0, null, null))
+                .toList());
+
+        return resourceToResourceInfoResponseDTO(userId, new ResourceMetadata(technicalName, 0, null, null));
+    }
+
+    // validation is done eagerly, but resources are read from S3 only while returned stream is consumed
+    private Stream<ResourceMetadata> directoryResources(long userId, String path, String cursor) {
+
         if (!isDirectory(path) && !path.isBlank()) {
             throw new NotDirectoryException(path);
         }
 
         String technicalName = USER_DIRECTORY.formatted(userId).concat(path);
 
-        if (!s3Repository.isObjectExists(defaultBucketName, technicalName)) {
+        if (!exists(userId, technicalName)) {
             throw new ResourceNotFound(path);
         }
 
-        return s3Repository.findAllNamesByPrefix(defaultBucketName, technicalName, false)
-                .stream()
+        if (resourceIndexService.isServing(userId)) {
+            return resourceIndexService.streamChildren(userId, technicalName, cursorToStartAfter(userId, cursor));
+        }
+
+        // listing already carries all needed metadata, so the whole directory costs a single paginated LIST
+        return s3Repository.streamByPrefix(defaultBucketName,
+                        technicalName,
+                        false,
+                        cursorToStartAfter(userId, cursor))
                 // we need to cut user directory if it is root directory e.i. path is empty
                 // or cut searching directory
-                .filter(name -> !name.equals(USER_DIRECTORY.formatted(userId)) && (path.isBlank() || !name.equals(technicalName)))
-                .map(name -> s3Repository.getResourceByPath(defaultBucketName, name))
-                .map(resource -> resourceToResourceInfoResponseDTO(userId, resource))
-                .collect(Collectors.toList());
+                .filter(resource -> !resource.path().equals(USER_DIRECTORY.formatted(userId))
+                        && (path.isBlank() || !resource.path().equals(technicalName)));
     }
 
-    public ResourceInfoResponseDTO createDirectory(long userId, String path) {
+    private Stream<ResourceMetadata> searchResources(long userId, String query, String cursor) {
 
-        if (!isDirectory(path)) {
-            throw new NotDirectoryException(path);
+        // index matches names with trigram index and ranks them, without listing the whole user directory
+        if (resourceIndexService.isServing(userId)) {
+            return resourceIndexService.search(userId, query, cursorToStartAfter(userId, cursor));
         }
 
-        String technicalName = USER_DIRECTORY.formatted(userId).concat(path);
+        String userDirectory = USER_DIRECTORY.formatted(userId);
 
-        if (s3Repository.isObjectExists(defaultBucketName, technicalName)) {
-            throw new ResourceAlreadyExistsException(path);
+        return s3Repository.streamByPrefix(defaultBucketName,
+                        userDirectory,
+                        true,
+                        cursorToStartAfter(userId, cursor))
+                .filter(resource -> resource.path().substring(userDirectory.length()).toLowerCase()
+                        .contains(query.toLowerCase()));
+    }
+
+    private Stream<ResourceMetadata> limit(Stream<ResourceMetadata> resources, Integer limit) {
+
+        return limit == null ? resources : resources.limit(limit);
+    }
+
+    private void validateTransfer(long userId, String sourcePath, String sourceTechnicalPath,
+                                  String targetPath, String targetTechnicalPath) {
+
+        validateTransferPaths(sourcePath, targetPath);
+
+        validateTransferResources(userId, sourcePath, sourceTechnicalPath, targetPath, targetTechnicalPath,
+                findExistingPaths(userId, transferPaths(userId, sourceTechnicalPath, targetPath, targetTechnicalPath)));
+    }
+
+    private CompletableFuture<Void> validateTransferAsync(long userId, String sourcePath, String sourceTechnicalPath,
+                                                          String targetPath, String targetTechnicalPath) {
+
+        validateTransferPaths(sourcePath, targetPath);
+
+        List<String> paths = transferPaths(userId, sourceTechnicalPath, targetPath, targetTechnicalPath);
+        CompletableFuture<Set<String>> existingPaths = resourceIndexService.isServing(userId)
+                ? CompletableFuture.completedFuture(resourceIndexService.findExistingPaths(userId, paths))
+                : asyncS3Repository.findExistingPathsAsync(defaultBucketName, paths);
+
+        return existingPaths.thenAccept(existing -> validateTransferResources(userId, sourcePath,
+                sourceTechnicalPath, targetPath, targetTechnicalPath, existing));
+    }
+
+    private void validateTransferPaths(String sourcePath, String targetPath) {
+
+        if (isDirectory(sourcePath) != isDirectory(targetPath)) {
+
+            throw new ResourceTypeMismatchException(sourcePath, targetPath);
         }
 
-        s3Repository.createDirectory(defaultBucketName, technicalName);
+        if (isDirectory(sourcePath) && targetPath.startsWith(sourcePath)) {
 
-        return resourceToResourceInfoResponseDTO(userId,
-                s3Repository.getResourceByPath(defaultBucketName, technicalName));
+            throw new NestedResourceException(sourcePath);
+        }
+    }
+
+    // all paths are checked at once, the user directory itself always exists
+    private List<String> transferPaths(long userId, String sourceTechnicalPath,
+                                       String targetPath, String targetTechnicalPath) {
+
+        String targetParentPath = parentPath(targetPath);
+
+        return targetParentPath.isEmpty()
+                ? List.of(sourceTechnicalPath, targetTechnicalPath)
+                : List.of(sourceTechnicalPath, targetTechnicalPath,
+                USER_DIRECTORY.formatted(userId).concat(targetParentPath));
+    }
+
+    private void validateTransferResources(long userId, String sourcePath, String sourceTechnicalPath,
+                                           String targetPath, String targetTechnicalPath,
+                                           Set<String> existingPaths) {
+
+        String targetParentPath = parentPath(targetPath);
+        String targetParentTechnicalPath = USER_DIRECTORY.formatted(userId).concat(targetParentPath);
+
+        if (!existingPaths.contains(sourceTechnicalPath)) {
+
+            throw new ResourceNotFound(sourcePath);
+        }
+
+        if (existingPaths.contains(targetTechnicalPath)) {
+
+            throw new ResourceAlreadyExistsException(targetPath);
+        }
+
+        if (!targetParentPath.isEmpty() && !existingPaths.contains(targetParentTechnicalPath)) {
+
+            throw new DirectoryNotExistException(targetParentPath);
+        }
+    }
+
+    private ResourceInfoPage toPage(long userId, Stream<ResourceMetadata> resources, Integer limit) {
+
+        if (limit == null) {
+            return new ResourceInfoPage(resources
+                    .map(resource -> resourceToResourceInfoResponseDTO(userId, resource))
+                    .collect(Collectors.toList()), null);
+        }
+
+        // one extra resource shows whether the next page exists
+        List<ResourceMetadata> page = resources.limit(limit + 1L).collect(Collectors.toList());
+        String nextCursor = null;
+
+        if (page.size() > limit) {
+
+            page = page.subList(0, limit);
+            nextCursor = page.getLast().path().substring(USER_DIRECTORY.formatted(userId).length());
+        }
+
+        return new ResourceInfoPage(page
+                .stream()
+                .map(resource -> resourceToResourceInfoResponseDTO(userId, resource))
+                .collect(Collectors.toList()), nextCursor);
+    }
+
+    // cursor is a path relative to user directory, so it can't point outside of it
+    private String cursorToStartAfter(long userId, String cursor) {
+
+        return cursor == null || cursor.isBlank() ? null : USER_DIRECTORY.formatted(userId).concat(cursor);
     }
 
-    private ResourceInfoResponseDTO resourceToResourceInfoResponseDTO(long userId, Resource resource) {
+    private ResourceInfoResponseDTO resourceToResourceInfoResponseDTO(long userId, ResourceMetadata resource) {
 
         Path fullPath = Paths.get(resource.path());
 
@@ -325,6 +865,59 @@ public class S3UserService {
         return new ResourceInfoResponseDTO(path, fileName, resource.size(), resourceType);
     }
 
+    // written paths are dropped from caches, including the ones of failed writes, which could be partially done
+    private void resourcesChanged(Collection<String> technicalPaths) {
+
+        eventPublisher.publishEvent(new ResourcesChangedEvent(defaultBucketName, technicalPaths));
+    }
+
+    // reads go to the index once it serves the user, S3 is requested only for data and writes
+
+    private ResourceMetadata getMetadata(long userId, String technicalPath) {
+
+        if (resourceIndexService.isServing(userId)) {
+            return resourceIndexService.find(userId, technicalPath)
+                    .orElseThrow(() -> new ResourceNotFound(technicalPath));
+        }
+
+        return s3Repository.getResourceMetadataByPath(defaultBucketName, technicalPath);
+    }
+
+    private boolean exists(long userId, String technicalPath) {
+
+        return resourceIndexService.isServing(userId)
+                ? resourceIndexService.exists(userId, technicalPath)
+                : s3Repository.isObjectExists(defaultBucketName, technicalPath);
+    }
+
+    private Set<String> findExistingPaths(long userId, Collection<String> technicalPaths) {
+
+        return resourceIndexService.isServing(userId)
+                ? resourceIndexService.findExistingPaths(userId, technicalPaths)
+                : s3Repository.findExistingPaths(defaultBucketName, technicalPaths);
+    }
+
+    private List<String> ancestorDirectories(String technicalPath, String fileName) {
+
+        List<String> directories = new ArrayList<>();
+
+        for (int i = 0; i < fileName.length(); i++) {
+
+            if (fileName.charAt(i) == '/') {
+                directories.add(technicalPath.concat(fileName.substring(0, i + 1)));
+            }
+        }
+
+        return directories;
+    }
+
+    private String parentPath(String path) {
+
+        String name = isDirectory(path) ? path.substring(0, path.length() - 1) : path;
+
+        return name.substring(0, name.lastIndexOf('/') + 1);
+    }
+
     private boolean isDirectory(String path) {
 
         return path.endsWith("/") && path.length() > 1;
@@ -0,0 +1,279 @@
+package org.fizz_buzz.cloud.service;
+
+import org.apache.commons.io.IOUtils;
+import org.fizz_buzz.cloud.concurrent.BulkOperationExecutor;
+import org.fizz_buzz.cloud.dto.ArchiveCompression;
+import org.fizz_buzz.cloud.exception.S3RepositoryException;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.repository.S3Repository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// next objects are fetched while the current entry is compressed, so latency of every object isn't waited
+@Component
+@PropertySource("classpath:application.properties")
+public class ZipArchiveWriter {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    // marks prefetched resource, which content is closed as soon as it's opened
+    private static final Content DISCARDED = new Content(null, null, null);
+
+    // compression of these formats costs CPU, but barely reduces the size
+    private static final Set<String> INCOMPRESSIBLE_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "avif",
+            "mp4", "mkv", "avi", "mov", "webm", "m4v",
+            "mp3", "aac", "ogg", "opus", "flac", "m4a",
+            "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "zst", "jar",
+            "docx", "xlsx", "pptx", "odt", "ods", "epub", "pdf");
+
+    private final S3Repository s3Repository;
+    private final BulkOperationExecutor bulkOperationExecutor;
+    private final int prefetchCount;
+    private final long prefetchMaxObjectSize;
+
+    public ZipArchiveWriter(S3Repository s3Repository,
+                            BulkOperationExecutor bulkOperationExecutor,
+                            @Value("${application.download.prefetch-count}") int prefetchCount,
+                            @Value("${application.download.prefetch-max-object-size}") DataSize prefetchMaxObjectSize) {
+
+        this.s3Repository = s3Repository;
+        this.bulkOperationExecutor = bulkOperationExecutor;
+        this.prefetchCount = prefetchCount;
+        this.prefetchMaxObjectSize = prefetchMaxObjectSize.toBytes();
+    }
+
+    // redundantOffset is length of the path prefix cut from names of the entries
+    public void write(OutputStream outputStream,
+                      String bucket,
+                      Stream<ResourceMetadata> resources,
+                      int redundantOffset,
+                      ArchiveCompression compression) throws IOException {
+
+        try (ZipOutputStream zos = new ZipOutputStream(outputStream); resources) {
+
+            Iterator<ResourceMetadata> iterator = resources.iterator();
+            // current resource and up to prefetchCount next ones
+            Deque<PrefetchedResource> window = new ArrayDeque<>();
+
+            try {
+
+                while (iterator.hasNext() || !window.isEmpty()) {
+
+                    while (window.size() <= prefetchCount && iterator.hasNext()) {
+                        window.add(prefetch(bucket, iterator.next(), compression));
+                    }
+
+                    writeEntry(zos, window.poll(), redundantOffset, compression);
+                }
+            } finally {
+
+                window.forEach(PrefetchedResource::discard);
+            }
+        }
+    }
+
+    private PrefetchedResource prefetch(String bucket, ResourceMetadata resource, ArchiveCompression compression) {
+
+        if (resource.path().endsWith("/")) {
+            return new PrefetchedResource(resource, null, null);
+        }
+
+        AtomicReference<Content> opened = new AtomicReference<>();
+
+        return new PrefetchedResource(resource, bulkOperationExecutor.submit(() -> {
+
+            Content content;
+
+            // small objects are read completely, so their connections are released at once,
+            // big ones are only opened in advance, memory is bounded by prefetchCount * prefetchMaxObjectSize
+            if (resource.size() <= prefetchMaxObjectSize) {
+
+                try (var dataStream = s3Repository.getResourceByPath(bucket, resource.path()).dataStream()) {
+
+                    byte[] bytes = dataStream.readAllBytes();
+                    CRC32 crc = new CRC32();
+                    crc.update(bytes);
+
+                    content = new Content(bytes, null, new Checksum(bytes.length, crc.getValue()));
+                }
+            } else if (isStored(resource.path(), compression)) {
+
+                // STORED entry requires size and checksum before its data, so a big object is read twice:
+                // for the checksum and then for the entry itself
+                Checksum checksum = checksum(bucket, resource.path());
+                content = new Content(null, s3Repository.getResourceByPath(bucket, resource.path()).dataStream(),
+                        checksum);
+            } else {
+                content = new Content(null, s3Repository.getResourceByPath(bucket, resource.path()).dataStream(),
+                        null);
+            }
+
+            // cancellation doesn't interrupt a request in flight, so the archive may be already aborted
+            if (!opened.compareAndSet(null, content)) {
+
+                content.close();
+                throw new CancellationException();
+            }
+
+            return content;
+        }), opened);
+    }
+
+    private Checksum checksum(String bucket, String path) throws IOException {
+
+        try (var dataStream = s3Repository.getResourceByPath(bucket, path).dataStream()) {
+
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long size = 0;
+            int read;
+
+            while ((read = dataStream.read(buffer)) != -1) {
+
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+
+            return new Checksum(size, crc.getValue());
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zos,
+                            PrefetchedResource resource,
+                            int redundantOffset,
+                            ArchiveCompression compression) throws IOException {
+
+        ZipEntry zipEntry = new ZipEntry(resource.metadata().path().substring(redundantOffset));
+
+        if (resource.content() == null) {
+
+            zos.putNextEntry(zipEntry);
+            zos.closeEntry();
+
+            return;
+        }
+
+        try (Content content = resource.await()) {
+
+            if (isStored(zipEntry.getName(), compression)) {
+
+                // an object changed between the two reads fails the archive on its checksum mismatch
+                zipEntry.setMethod(ZipEntry.STORED);
+                zipEntry.setSize(content.checksum().size());
+                zipEntry.setCompressedSize(content.checksum().size());
+                zipEntry.setCrc(content.checksum().crc());
+            } else {
+
+                zipEntry.setMethod(ZipEntry.DEFLATED);
+                zos.setLevel(Deflater.DEFAULT_COMPRESSION);
+            }
+
+            zos.putNextEntry(zipEntry);
+
+            if (content.bytes() != null) {
+                zos.write(content.bytes());
+            } else {
+                IOUtils.copy(content.stream(), zos, COPY_BUFFER_SIZE);
+            }
+
+            zos.closeEntry();
+        }
+    }
+
+    private boolean isStored(String name, ArchiveCompression compression) {
+
+        String extension = StringUtils.getFilenameExtension(name);
+
+        return switch (compression) {
+            case STORE -> true;
+            case DEFLATE -> false;
+            case AUTO -> extension != null && INCOMPRESSIBLE_EXTENSIONS.contains(extension.toLowerCase());
+        };
+    }
+
+    private record Checksum(long size, long crc) {
+    }
+
+    // either the whole object in memory or its opened stream, checksum is known for stored entries
+    private record Content(byte[] bytes, InputStream stream, Checksum checksum) implements Closeable {
+
+        @Override
+        public void close() throws IOException {
+
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    private record PrefetchedResource(ResourceMetadata metadata,
+                                      Future<Content> content,
+                                      AtomicReference<Content> opened) {
+
+        Content await() throws IOException {
+
+            try {
+
+                return content.get();
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+
+                throw new S3RepositoryException(e.getCause());
+            }
+        }
+
+        void discard() {
+
+            if (content == null) {
+                return;
+            }
+
+            content.cancel(true);
+
+            // content opened before the discarding is closed here, the later one is closed by the task itself
+            Content openedContent = opened.getAndSet(DISCARDED);
+
+            if (openedContent != null) {
+
+                try {
+
+                    openedContent.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+CREATE TABLE upload_sessions
+(
+    id         UUID                     NOT NULL,
+    user_id    BIGINT                   NOT NULL,
+    path       TEXT                     NOT NULL,
+    upload_id  TEXT                     NOT NULL,
+    size       BIGINT                   NOT NULL,
+    part_size  BIGINT                   NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_upload_sessions PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX upload_sessions_user_id_path ON upload_sessions (user_id, path);
+
+CREATE INDEX upload_sessions_expires_at ON upload_sessions (expires_at);
\ No newline at end of file
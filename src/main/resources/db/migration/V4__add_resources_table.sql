@@ -0,0 +1,16 @@
+-- paths are compared byte by byte, in the same order S3 lists keys
+CREATE TABLE resources
+(
+    user_id       BIGINT                   NOT NULL,
+    path          TEXT COLLATE "C"         NOT NULL,
+    parent        TEXT COLLATE "C"         NOT NULL,
+    name          TEXT                     NOT NULL,
+    size          BIGINT                   NOT NULL,
+    type          VARCHAR(16)              NOT NULL,
+    etag          TEXT,
+    last_modified TIMESTAMP WITH TIME ZONE,
+    indexed_at    TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_resources PRIMARY KEY (user_id, path)
+);
+
+CREATE INDEX resources_user_id_parent_path ON resources (user_id, parent, path);
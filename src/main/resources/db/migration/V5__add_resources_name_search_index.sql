@@ -0,0 +1,5 @@
+-- btree_gin allows user_id in the same GIN index, so search reads only trigrams of one user
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX resources_user_id_name_trgm ON resources USING GIN (user_id, lower(name) gin_trgm_ops);
@@ -0,0 +1,7 @@
+-- the only row exists while the index is filled and kept up to date by writes
+CREATE TABLE resources_index_state
+(
+    id            INT                      NOT NULL,
+    reconciled_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_resources_index_state PRIMARY KEY (id)
+);
@@ -0,0 +1,2 @@
+-- trigrams can't narrow queries shorter than 3 characters, such queries look for names starting with them
+CREATE INDEX resources_user_id_lower_name ON resources (user_id, (lower(name) COLLATE "C"));
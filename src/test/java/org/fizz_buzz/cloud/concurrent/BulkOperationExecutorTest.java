@@ -0,0 +1,155 @@
+package org.fizz_buzz.cloud.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkOperationExecutorTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final BulkOperationExecutor bulkOperationExecutor = new BulkOperationExecutor(4);
+
+    @AfterEach
+    public void tearDown() {
+
+        bulkOperationExecutor.shutdown();
+    }
+
+    @Test
+    public void execute_MoreItemsThanParallelism_ItemsPulledOnlyForFreeSlots() {
+
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        BulkOperationResult<Integer> result = bulkOperationExecutor.execute(IntStream.range(0, 20)
+                        .boxed()
+                        .peek(item -> pulled.incrementAndGet()),
+                item -> {
+
+                    maxInFlight.accumulateAndGet(pulled.get() - finished.get(), Math::max);
+                    Thread.sleep(10);
+                    finished.incrementAndGet();
+                },
+                2);
+
+        assertAll(
+                () -> assertTrue(result.isSuccessful()),
+                () -> assertEquals(20, result.succeeded()),
+                () -> assertTrue(maxInFlight.get() <= 2, "In flight: %d".formatted(maxInFlight.get()))
+        );
+    }
+
+    @Test
+    public void execute_SomeItemsFailed_FailuresCollectedAndOthersProcessed() {
+
+        IllegalStateException cause = new IllegalStateException("failed");
+
+        BulkOperationResult<Integer> result = bulkOperationExecutor.execute(Stream.of(1, 2, 3, 4, 5), item -> {
+
+            if (item % 2 == 0) {
+                throw cause;
+            }
+        });
+
+        assertAll(
+                () -> assertEquals(3, result.succeeded()),
+                () -> assertEquals(List.of(2, 4), result.failures().stream()
+                        .map(BulkOperationFailure::item)
+                        .sorted()
+                        .toList()),
+                () -> assertTrue(result.failures().stream().allMatch(failure -> failure.cause() == cause))
+        );
+    }
+
+    @Test
+    public void execute_SourceFailed_ThrownAfterStartedItemsFinished() {
+
+        AtomicInteger finished = new AtomicInteger();
+        Stream<Integer> items = Stream.iterate(0, item -> item + 1)
+                .peek(item -> {
+
+                    if (item == 3) {
+                        throw new IllegalStateException("source failed");
+                    }
+                });
+
+        assertThrows(IllegalStateException.class, () -> bulkOperationExecutor.execute(items, item -> {
+
+            Thread.sleep(50);
+            finished.incrementAndGet();
+        }));
+
+        assertEquals(3, finished.get());
+    }
+
+    @Test
+    public void execute_ExecutorShutDown_FailedWithoutWaiting() {
+
+        bulkOperationExecutor.shutdown();
+
+        BulkOperationResult<Integer> result = assertTimeoutPreemptively(TIMEOUT,
+                () -> bulkOperationExecutor.execute(Stream.of(1, 2, 3), item -> {
+                }));
+
+        assertAll(
+                () -> assertEquals(0, result.succeeded()),
+                () -> assertEquals(1, result.failures().size()),
+                () -> assertInstanceOf(RejectedExecutionException.class, result.failures().getFirst().cause())
+        );
+    }
+
+    @Test
+    public void execute_ConcurrentCalls_OperationsBoundedByExecutorParallelism() throws Exception {
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        BulkOperationExecutor.BulkOperation<Integer> operation = item -> {
+
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            inFlight.decrementAndGet();
+        };
+
+        // every call alone may run as many operations as the whole executor
+        CompletableFuture<BulkOperationResult<Integer>> first = CompletableFuture.supplyAsync(() ->
+                bulkOperationExecutor.execute(IntStream.range(0, 20).boxed(), operation, 4));
+        CompletableFuture<BulkOperationResult<Integer>> second = CompletableFuture.supplyAsync(() ->
+                bulkOperationExecutor.execute(IntStream.range(0, 20).boxed(), operation, 4));
+
+        assertAll(
+                () -> assertEquals(20, first.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS).succeeded()),
+                () -> assertEquals(20, second.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS).succeeded()),
+                () -> assertTrue(maxInFlight.get() <= 4, "In flight: %d".formatted(maxInFlight.get()))
+        );
+    }
+
+    @Test
+    public void execute_NestedCallWhileAllPermitsHeld_Completed() {
+
+        AtomicInteger nestedSucceeded = new AtomicInteger();
+
+        // outer operations hold all permits of the executor
+        BulkOperationResult<Integer> result = assertTimeoutPreemptively(TIMEOUT,
+                () -> bulkOperationExecutor.execute(IntStream.range(0, 4).boxed(), item -> nestedSucceeded.addAndGet(
+                        (int) bulkOperationExecutor.execute(Stream.of(1, 2, 3), nestedItem -> {
+                        }).succeeded())));
+
+        assertAll(
+                () -> assertEquals(4, result.succeeded()),
+                () -> assertEquals(12, nestedSucceeded.get())
+        );
+    }
+}
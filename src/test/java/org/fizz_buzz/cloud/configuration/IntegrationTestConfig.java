@@ -65,6 +65,7 @@ public class IntegrationTestConfig {
             registry.add("minio.url", minioContainer::getS3URL);
             registry.add("minio.access-key", minioContainer::getUserName);
             registry.add("minio.secret-key", minioContainer::getPassword);
+            registry.add("application.presigned-urls.enabled", () -> true);
         };
     }
 }
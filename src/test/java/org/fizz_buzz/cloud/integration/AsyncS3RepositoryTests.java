@@ -0,0 +1,149 @@
+package org.fizz_buzz.cloud.integration;
+
+import io.minio.MinioAsyncClient;
+import org.fizz_buzz.cloud.exception.ResourceAlreadyExistsException;
+import org.fizz_buzz.cloud.exception.ResourceNotFound;
+import org.fizz_buzz.cloud.repository.AsyncMinioRepository;
+import org.fizz_buzz.cloud.repository.MinioRepository;
+import org.fizz_buzz.cloud.repository.S3Repository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// async adapter is built here, so both adapters are checked against the same storage in the shared context
+public class AsyncS3RepositoryTests extends IntegrationTestBaseClass {
+
+    @Autowired
+    private MinioRepository minioRepository;
+    @Value("${minio.url}")
+    private String url;
+    @Value("${minio.access-key}")
+    private String accessKey;
+    @Value("${minio.secret-key}")
+    private String secretKey;
+    private AsyncMinioRepository asyncMinioRepository;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"blocking", "async"})
+    void createDirectory_NestedDirectory_CreatedWithParents(String client) {
+
+        S3Repository s3Repository = adapter(client);
+        long userId = nextUserId();
+
+        s3Repository.createDirectory(DEFAULT_BUCKET, getTechnicalName(userId, "Test/Nested/"));
+
+        assertAll(
+                () -> assertTrue(s3Repository.isObjectExists(DEFAULT_BUCKET, getTechnicalName(userId, "Test/"))),
+                () -> assertThrows(ResourceAlreadyExistsException.class,
+                        () -> s3Repository.createDirectory(DEFAULT_BUCKET, getTechnicalName(userId, "Test/Nested/")))
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"blocking", "async"})
+    void copyResource_DirectoryWithFiles_CopiedWithContent(String client) {
+
+        S3Repository s3Repository = adapter(client);
+        long userId = nextUserId();
+
+        save(s3Repository, getTechnicalName(userId, "Source/first.txt"));
+        save(s3Repository, getTechnicalName(userId, "Source/Nested/second.txt"));
+
+        s3Repository.copyResource(DEFAULT_BUCKET, getTechnicalName(userId, "Source/"), getTechnicalName(userId, "Copy/"));
+
+        assertEquals(Set.of(getTechnicalName(userId, "Copy/first.txt"), getTechnicalName(userId, "Copy/Nested/")),
+                s3Repository.findExistingPaths(DEFAULT_BUCKET, List.of(
+                        getTechnicalName(userId, "Copy/first.txt"),
+                        getTechnicalName(userId, "Copy/Nested/"),
+                        getTechnicalName(userId, "Copy/missing.txt"))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"blocking", "async"})
+    void findExistingPaths_ManyPathsInDirectory_OnlyExistingFound(String client) {
+
+        S3Repository s3Repository = adapter(client);
+        long userId = nextUserId();
+        List<String> paths = IntStream.range(0, 40)
+                .mapToObj(i -> getTechnicalName(userId, "directory-%02d/".formatted(i)))
+                .toList();
+        List<String> created = IntStream.range(0, paths.size())
+                .filter(i -> i % 2 == 0)
+                .mapToObj(paths::get)
+                .toList();
+
+        s3Repository.createDirectories(DEFAULT_BUCKET, created);
+
+        assertEquals(Set.copyOf(created), s3Repository.findExistingPaths(DEFAULT_BUCKET, paths));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"blocking", "async"})
+    void findExistingPaths_DirectoryWithoutMarker_Found(String client) {
+
+        S3Repository s3Repository = adapter(client);
+        long userId = nextUserId();
+        String directory = getTechnicalName(userId, "A/");
+
+        // written bypassing directory creation, so the directory has no marker
+        save(s3Repository, getTechnicalName(userId, "A/test.txt"));
+
+        List<String> manyPaths = Stream.concat(Stream.of(directory), IntStream.range(0, 20)
+                        .mapToObj(i -> getTechnicalName(userId, "missing-%02d/".formatted(i))))
+                .toList();
+
+        assertAll(
+                () -> assertEquals(Set.of(directory), s3Repository.findExistingPaths(DEFAULT_BUCKET,
+                        List.of(directory, getTechnicalName(userId, "B/")))),
+                () -> assertEquals(Set.of(directory), s3Repository.findExistingPaths(DEFAULT_BUCKET, manyPaths))
+        );
+    }
+
+    @Test
+    void getResourceMetadataByPathAsync_NonexistentFile_FailedWithResourceNotFound() {
+
+        long userId = nextUserId();
+
+        var future = asyncAdapter().getResourceMetadataByPathAsync(DEFAULT_BUCKET,
+                getTechnicalName(userId, "test.txt"));
+
+        CompletionException exception = assertThrows(CompletionException.class, future::join);
+
+        assertInstanceOf(ResourceNotFound.class, exception.getCause());
+    }
+
+    private S3Repository adapter(String client) {
+
+        return client.equals("async") ? asyncAdapter() : minioRepository;
+    }
+
+    private AsyncMinioRepository asyncAdapter() {
+
+        if (asyncMinioRepository == null) {
+            asyncMinioRepository = new AsyncMinioRepository(minioRepository, MinioAsyncClient.builder()
+                    .endpoint(url)
+                    .credentials(accessKey, secretKey)
+                    .build());
+        }
+
+        return asyncMinioRepository;
+    }
+
+    private void save(S3Repository s3Repository, String path) {
+
+        byte[] content = "test content".getBytes();
+
+        s3Repository.saveResource(DEFAULT_BUCKET, path, new ByteArrayInputStream(content), content.length, null);
+    }
+}
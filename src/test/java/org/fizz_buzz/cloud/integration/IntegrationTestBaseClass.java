@@ -5,4 +5,20 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 @SpringBootTest(classes = IntegrationTestConfig.class)
 public abstract class IntegrationTestBaseClass {
+
+    protected static final String DEFAULT_BUCKET = "user-files";
+    protected static final String USER_DIRECTORY = "user-%d-files/";
+
+    // all test classes share the context, ids start above the ones of users signed up by tests
+    private static long currentUserId = 1_000_000;
+
+    protected long nextUserId() {
+
+        return currentUserId++;
+    }
+
+    protected String getTechnicalName(long userId, String resourcePath) {
+
+        return USER_DIRECTORY.formatted(userId).concat(resourcePath);
+    }
 }
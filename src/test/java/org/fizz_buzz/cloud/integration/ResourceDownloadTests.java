@@ -0,0 +1,229 @@
+package org.fizz_buzz.cloud.integration;
+
+import org.fizz_buzz.cloud.model.User;
+import org.fizz_buzz.cloud.security.CustomUserDetails;
+import org.fizz_buzz.cloud.service.S3UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@AutoConfigureMockMvc
+public class ResourceDownloadTests extends IntegrationTestBaseClass {
+
+    private static final String CONTENT = "0123456789";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private S3UserService s3UserService;
+
+    @Test
+    void downloadResource_SingleRange_PartialContent() throws Exception {
+
+        long userId = createUserWithFile(CONTENT);
+
+        MockHttpServletResponse response = download(userId, "test.txt", HttpHeaders.RANGE, "bytes=2-5");
+
+        assertAll(
+                () -> assertEquals(206, response.getStatus()),
+                () -> assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE)),
+                () -> assertEquals("4", response.getHeader(HttpHeaders.CONTENT_LENGTH)),
+                () -> assertEquals("2345", response.getContentAsString())
+        );
+    }
+
+    @Test
+    void downloadResource_SuffixRange_LastBytes() throws Exception {
+
+        long userId = createUserWithFile(CONTENT);
+
+        MockHttpServletResponse response = download(userId, "test.txt", HttpHeaders.RANGE, "bytes=-3");
+
+        assertAll(
+                () -> assertEquals(206, response.getStatus()),
+                () -> assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE)),
+                () -> assertEquals("789", response.getContentAsString())
+        );
+    }
+
+    @Test
+    void downloadResource_RangeOutOfFile_RangeNotSatisfiable() throws Exception {
+
+        long userId = createUserWithFile(CONTENT);
+
+        MockHttpServletResponse response = download(userId, "test.txt", HttpHeaders.RANGE, "bytes=10-20");
+
+        assertAll(
+                () -> assertEquals(416, response.getStatus()),
+                () -> assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE))
+        );
+    }
+
+    @Test
+    void downloadResource_EmptyFileWithRange_RangeNotSatisfiable() throws Exception {
+
+        long userId = createUserWithFile("");
+
+        MockHttpServletResponse whole = download(userId, "test.txt");
+        MockHttpServletResponse ranged = download(userId, "test.txt", HttpHeaders.RANGE, "bytes=0-0");
+
+        assertAll(
+                () -> assertEquals(200, whole.getStatus()),
+                () -> assertEquals("0", whole.getHeader(HttpHeaders.CONTENT_LENGTH)),
+                () -> assertEquals("", whole.getContentAsString()),
+                () -> assertEquals(416, ranged.getStatus()),
+                () -> assertEquals("bytes */0", ranged.getHeader(HttpHeaders.CONTENT_RANGE))
+        );
+    }
+
+    @Test
+    void downloadResource_MatchingIfNoneMatch_NotModified() throws Exception {
+
+        long userId = createUserWithFile(CONTENT);
+        String etag = download(userId, "test.txt").getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse response = download(userId, "test.txt", HttpHeaders.IF_NONE_MATCH, etag);
+
+        assertAll(
+                () -> assertNotNull(etag),
+                () -> assertEquals(304, response.getStatus()),
+                () -> assertEquals(etag, response.getHeader(HttpHeaders.ETAG))
+        );
+    }
+
+    @Test
+    void downloadResource_IfModifiedSinceLastModified_NotModified() throws Exception {
+
+        long userId = createUserWithFile(CONTENT);
+        String lastModified = download(userId, "test.txt").getHeader(HttpHeaders.LAST_MODIFIED);
+
+        MockHttpServletResponse response = download(userId, "test.txt", HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    void downloadResource_IfRangeMismatch_WholeFile() throws Exception {
+
+        long userId = createUserWithFile(CONTENT);
+
+        MockHttpServletResponse response = download(userId, "test.txt",
+                HttpHeaders.RANGE, "bytes=2-5",
+                HttpHeaders.IF_RANGE, "\"outdated\"");
+
+        assertAll(
+                () -> assertEquals(200, response.getStatus()),
+                () -> assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE)),
+                () -> assertEquals(CONTENT, response.getContentAsString())
+        );
+    }
+
+    @Test
+    void downloadResource_MultipleRanges_WholeFile() throws Exception {
+
+        long userId = createUserWithFile(CONTENT);
+
+        MockHttpServletResponse response = download(userId, "test.txt", HttpHeaders.RANGE, "bytes=0-1,4-5");
+
+        assertAll(
+                () -> assertEquals(200, response.getStatus()),
+                () -> assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE)),
+                () -> assertEquals(CONTENT, response.getContentAsString())
+        );
+    }
+
+    @Test
+    void downloadResource_Directory_ArchiveWithAllEntries() throws Exception {
+
+        long userId = nextUserId();
+        // bigger than prefetch-max-object-size, so the object is streamed
+        byte[] big = new byte[2 * 1024 * 1024];
+        new Random(42).nextBytes(big);
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Docs/");
+        s3UserService.createDirectory(userId, "Docs/Empty/");
+        s3UserService.createDirectory(userId, "Docs/Nested/");
+        s3UserService.upload(userId, "Docs/", new MultipartFile[]{
+                new MockMultipartFile("object", "a.txt", null, CONTENT.getBytes()),
+                new MockMultipartFile("object", "Nested/big.bin", null, big)});
+
+        MockHttpServletResponse response = download(userId, "Docs/");
+        Map<String, ZipEntry> entries = new HashMap<>();
+        Map<String, byte[]> contents = new HashMap<>();
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+
+            ZipEntry zipEntry;
+
+            while ((zipEntry = zis.getNextEntry()) != null) {
+
+                entries.put(zipEntry.getName(), zipEntry);
+                contents.put(zipEntry.getName(), zis.readAllBytes());
+            }
+        }
+
+        assertAll(
+                () -> assertEquals(200, response.getStatus()),
+                () -> assertEquals(Set.of("Docs/", "Docs/Empty/", "Docs/Nested/", "Docs/a.txt", "Docs/Nested/big.bin"),
+                        entries.keySet()),
+                () -> assertTrue(entries.get("Docs/Empty/").isDirectory()),
+                () -> assertTrue(entries.get("Docs/Nested/").isDirectory()),
+                () -> assertArrayEquals(CONTENT.getBytes(), contents.get("Docs/a.txt")),
+                () -> assertArrayEquals(big, contents.get("Docs/Nested/big.bin"))
+        );
+    }
+
+    private long createUserWithFile(String content) {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, content.getBytes())});
+
+        return userId;
+    }
+
+    // headers are given as name and value pairs
+    private MockHttpServletResponse download(long userId, String path, String... headers) throws Exception {
+
+        User user = new User("user", "password");
+        user.setId(userId);
+
+        MockHttpServletRequestBuilder request = get("/api/v1/resource/download")
+                .param("path", path)
+                .with(user(new CustomUserDetails(user)));
+
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+
+        MvcResult result = mockMvc.perform(request).andReturn();
+
+        // file is streamed asynchronously, responses without body are complete at once
+        return result.getRequest().isAsyncStarted()
+                ? mockMvc.perform(asyncDispatch(result)).andReturn().getResponse()
+                : result.getResponse();
+    }
+}
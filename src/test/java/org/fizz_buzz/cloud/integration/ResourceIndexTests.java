@@ -0,0 +1,320 @@
+package org.fizz_buzz.cloud.integration;
+
+import org.fizz_buzz.cloud.dto.ResourceInfoPage;
+import org.fizz_buzz.cloud.dto.ResourceType;
+import org.fizz_buzz.cloud.dto.response.ResourceInfoResponseDTO;
+import org.fizz_buzz.cloud.exception.ResourceNotFound;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.repository.S3Repository;
+import org.fizz_buzz.cloud.service.ResourceIndexService;
+import org.fizz_buzz.cloud.service.S3UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResourceIndexTests extends IntegrationTestBaseClass {
+
+    @Autowired
+    private S3UserService s3UserService;
+    @Autowired
+    private S3Repository s3Repository;
+    @Autowired
+    private ResourceIndexService resourceIndexService;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    // index is enabled only for these tests, so they share the context with the others
+    @BeforeEach
+    void enableIndex() {
+
+        ReflectionTestUtils.setField(resourceIndexService, "enabled", true);
+        resourceIndexService.repair();
+    }
+
+    @AfterEach
+    void disableIndex() {
+
+        ReflectionTestUtils.setField(resourceIndexService, "enabled", false);
+    }
+
+    @Test
+    void getDirectory_UploadedFilesAndDirectories_ListedFromIndex() {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Test/Nested/");
+        s3UserService.upload(userId, "Test/", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, content)});
+
+        List<ResourceInfoResponseDTO> root = s3UserService.getDirectory(userId, "");
+        List<ResourceInfoResponseDTO> directory = s3UserService.getDirectory(userId, "Test/");
+
+        assertAll(
+                () -> assertEquals(List.of(new ResourceInfoResponseDTO("", "Test", 0L, ResourceType.DIRECTORY)), root),
+                () -> assertEquals(List.of(
+                        new ResourceInfoResponseDTO("Test/", "Nested", 0L, ResourceType.DIRECTORY),
+                        new ResourceInfoResponseDTO("Test/", "test.txt", (long) content.length, ResourceType.FILE)),
+                        directory),
+                () -> assertEquals(new ResourceInfoResponseDTO("Test/", "test.txt", (long) content.length,
+                        ResourceType.FILE), s3UserService.getResource(userId, "Test/test.txt"))
+        );
+    }
+
+    @Test
+    void getFileMetadata_UploadedFile_IndexedWithStoredEtag() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, "test content".getBytes())});
+
+        ResourceMetadata stored = s3Repository.getResourceMetadataByPath(DEFAULT_BUCKET,
+                getTechnicalName(userId, "test.txt"));
+        ResourceMetadata indexed = s3UserService.getFileMetadata(userId, "test.txt");
+
+        assertAll(
+                () -> assertNotNull(indexed.etag()),
+                () -> assertEquals(stored.etag(), indexed.etag()),
+                () -> assertEquals(stored.lastModified().toInstant(), indexed.lastModified().toInstant())
+        );
+    }
+
+    @Test
+    void getDirectory_Limit_PagedByCursor() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "A/");
+        s3UserService.createDirectory(userId, "B/");
+        s3UserService.createDirectory(userId, "C/");
+
+        ResourceInfoPage firstPage = s3UserService.getDirectory(userId, "", null, 2);
+        ResourceInfoPage lastPage = s3UserService.getDirectory(userId, "", firstPage.nextCursor(), 2);
+
+        assertAll(
+                () -> assertEquals(List.of("A", "B"),
+                        firstPage.resources().stream().map(ResourceInfoResponseDTO::name).toList()),
+                () -> assertEquals("B/", firstPage.nextCursor()),
+                () -> assertEquals(List.of("C"),
+                        lastPage.resources().stream().map(ResourceInfoResponseDTO::name).toList()),
+                () -> assertNull(lastPage.nextCursor())
+        );
+    }
+
+    @Test
+    void deleteResource_DirectoryWithFile_RemovedFromIndex() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "Test/test.txt", null, "test content".getBytes())});
+
+        s3UserService.deleteResource(userId, "Test/");
+
+        assertAll(
+                () -> assertTrue(s3UserService.getDirectory(userId, "").isEmpty()),
+                () -> assertThrows(ResourceNotFound.class, () -> s3UserService.getResource(userId, "Test/test.txt"))
+        );
+    }
+
+    @Test
+    void moveResource_DirectoryWithFile_IndexedByNewPath() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "Old/test.txt", null, "test content".getBytes())});
+
+        s3UserService.moveResource(userId, "Old/", "New/");
+
+        assertAll(
+                () -> assertEquals(List.of("New"),
+                        s3UserService.getDirectory(userId, "").stream().map(ResourceInfoResponseDTO::name).toList()),
+                () -> assertEquals(List.of("test.txt"),
+                        s3UserService.getDirectory(userId, "New/").stream().map(ResourceInfoResponseDTO::name).toList())
+        );
+    }
+
+    @Test
+    void searchResource_MatchingNames_RankedAndPagedByCursor() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "A/my-report.txt", null, "1".getBytes()),
+                new MockMultipartFile("object", "B/report.txt", null, "2".getBytes()),
+                new MockMultipartFile("object", "Report/notes.txt", null, "3".getBytes()),
+                new MockMultipartFile("object", "unrelated.txt", null, "4".getBytes())});
+
+        ResourceInfoPage firstPage = s3UserService.searchResource(userId, "REPORT", null, 2);
+        ResourceInfoPage lastPage = s3UserService.searchResource(userId, "REPORT", firstPage.nextCursor(), 2);
+
+        assertAll(
+                () -> assertEquals(List.of("Report", "report.txt"),
+                        firstPage.resources().stream().map(ResourceInfoResponseDTO::name).toList()),
+                () -> assertEquals("B/report.txt", firstPage.nextCursor()),
+                () -> assertEquals(List.of("my-report.txt"),
+                        lastPage.resources().stream().map(ResourceInfoResponseDTO::name).toList()),
+                () -> assertNull(lastPage.nextCursor()),
+                () -> assertTrue(s3UserService.searchResource(userId, "%").isEmpty())
+        );
+    }
+
+    @Test
+    void searchResource_QueryShorterThanTrigram_NamesStartingWithQuery() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "A/my-report.txt", null, "1".getBytes()),
+                new MockMultipartFile("object", "B/re", null, "2".getBytes()),
+                new MockMultipartFile("object", "Report/notes.txt", null, "3".getBytes()),
+                new MockMultipartFile("object", "unrelated.txt", null, "4".getBytes())});
+
+        ResourceInfoPage firstPage = s3UserService.searchResource(userId, "RE", null, 1);
+        ResourceInfoPage lastPage = s3UserService.searchResource(userId, "RE", firstPage.nextCursor(), 2);
+
+        assertAll(
+                () -> assertEquals(List.of("re"),
+                        firstPage.resources().stream().map(ResourceInfoResponseDTO::name).toList()),
+                () -> assertEquals(List.of("Report"),
+                        lastPage.resources().stream().map(ResourceInfoResponseDTO::name).toList()),
+                () -> assertNull(lastPage.nextCursor())
+        );
+    }
+
+    @Test
+    void reindex_ObjectsChangedBypassingService_IndexMatchesStorage() {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Removed/");
+        s3Repository.deleteResource(DEFAULT_BUCKET, getTechnicalName(userId, "Removed/"));
+        s3Repository.saveResource(DEFAULT_BUCKET, getTechnicalName(userId, "added.txt"),
+                new ByteArrayInputStream(content), content.length, null);
+
+        resourceIndexService.reindex(userId, getTechnicalName(userId, ""));
+
+        assertEquals(List.of(new ResourceInfoResponseDTO("", "added.txt", (long) content.length, ResourceType.FILE)),
+                s3UserService.getDirectory(userId, ""));
+    }
+
+    @Test
+    void getDirectory_ObjectWrittenBypassingService_IndexedFromBucketNotification() throws InterruptedException {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3Repository.saveResource(DEFAULT_BUCKET, getTechnicalName(userId, "added.txt"),
+                new ByteArrayInputStream(content), content.length, null);
+
+        List<ResourceInfoResponseDTO> directory = s3UserService.getDirectory(userId, "");
+
+        // notification is delivered asynchronously
+        for (int i = 0; i < 50 && directory.isEmpty(); i++) {
+
+            Thread.sleep(100);
+            directory = s3UserService.getDirectory(userId, "");
+        }
+
+        assertEquals(List.of(new ResourceInfoResponseDTO("", "added.txt", (long) content.length, ResourceType.FILE)),
+                directory);
+    }
+
+    @Test
+    void getDirectory_NestedObjectWrittenBypassingService_IndexedWithDirectories() throws InterruptedException {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3Repository.saveResource(DEFAULT_BUCKET, getTechnicalName(userId, "X/Y/added.txt"),
+                new ByteArrayInputStream(content), content.length, null);
+
+        List<ResourceInfoResponseDTO> root = s3UserService.getDirectory(userId, "");
+
+        // notification is delivered asynchronously
+        for (int i = 0; i < 50 && root.isEmpty(); i++) {
+
+            Thread.sleep(100);
+            root = s3UserService.getDirectory(userId, "");
+        }
+
+        assertEquals(List.of(new ResourceInfoResponseDTO("", "X", 0L, ResourceType.DIRECTORY)), root);
+        assertEquals(List.of(new ResourceInfoResponseDTO("X/Y/", "added.txt", (long) content.length,
+                ResourceType.FILE)), s3UserService.getDirectory(userId, "X/Y/"));
+    }
+
+    @Test
+    void applyRemoved_RemovalBeforeUpload_EntryKept() {
+
+        long userId = nextUserId();
+        ZonedDateTime removedAt = ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(1);
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, "test content".getBytes())});
+
+        // delayed notification of removal of the previous file at the same path
+        resourceIndexService.applyRemoved(userId, getTechnicalName(userId, "test.txt"), removedAt);
+
+        assertEquals(List.of("test.txt"),
+                s3UserService.getDirectory(userId, "").stream().map(ResourceInfoResponseDTO::name).toList());
+    }
+
+    @Test
+    void repair_IndexFilledByAnotherNode_ServedFromStorageUntilFilled() throws SQLException {
+
+        long userId = nextUserId();
+        long lock = (long) ReflectionTestUtils.getField(ResourceIndexService.class, "RECONCILIATION_LOCK");
+
+        // index is just enabled over existing objects
+        jdbcTemplate.update("DELETE FROM resources_index_state", Map.of());
+        ReflectionTestUtils.setField(resourceIndexService, "filled", false);
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+
+            statement.execute("SELECT pg_advisory_lock(%d)".formatted(lock));
+            resourceIndexService.repair();
+
+            assertFalse(resourceIndexService.isServing(userId));
+
+            statement.execute("SELECT pg_advisory_unlock(%d)".formatted(lock));
+        }
+
+        resourceIndexService.repair();
+
+        assertTrue(resourceIndexService.isServing(userId));
+    }
+}
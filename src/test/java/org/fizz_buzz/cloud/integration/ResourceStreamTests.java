@@ -0,0 +1,161 @@
+package org.fizz_buzz.cloud.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.fizz_buzz.cloud.dto.ResourceType;
+import org.fizz_buzz.cloud.dto.response.ResourceInfoResponseDTO;
+import org.fizz_buzz.cloud.model.User;
+import org.fizz_buzz.cloud.security.CustomUserDetails;
+import org.fizz_buzz.cloud.service.S3UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@AutoConfigureMockMvc
+public class ResourceStreamTests extends IntegrationTestBaseClass {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private S3UserService s3UserService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void streamDirectory_Resources_OneJsonPerLine() throws Exception {
+
+        long userId = createUserWithResources();
+
+        MockHttpServletResponse response = stream(userId, get("/api/v1/directory/stream")
+                .param("path", "Docs/"));
+
+        assertAll(
+                () -> assertEquals(200, response.getStatus()),
+                () -> assertTrue(MediaType.APPLICATION_NDJSON.isCompatibleWith(
+                        MediaType.parseMediaType(response.getContentType()))),
+                () -> assertTrue(response.getContentAsString().endsWith("\n")),
+                () -> assertEquals(List.of(
+                        new ResourceInfoResponseDTO("Docs/", "Nested", 0L, ResourceType.DIRECTORY),
+                        new ResourceInfoResponseDTO("Docs/", "a.txt", 1L, ResourceType.FILE),
+                        new ResourceInfoResponseDTO("Docs/", "b.txt", 1L, ResourceType.FILE)),
+                        parseLines(response))
+        );
+    }
+
+    @Test
+    void streamDirectory_CursorBuiltFromLastLine_StreamResumed() throws Exception {
+
+        long userId = createUserWithResources();
+
+        List<ResourceInfoResponseDTO> whole = parseLines(stream(userId, get("/api/v1/directory/stream")
+                .param("path", "Docs/")));
+        List<ResourceInfoResponseDTO> resumed = new ArrayList<>();
+        String cursor = null;
+
+        // the stream is interrupted after every line
+        for (int i = 0; i < whole.size() + 1; i++) {
+
+            MockHttpServletRequestBuilder request = get("/api/v1/directory/stream")
+                    .param("path", "Docs/")
+                    .param("limit", "1");
+
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+
+            List<ResourceInfoResponseDTO> lines = parseLines(stream(userId, request));
+
+            if (lines.isEmpty()) {
+                break;
+            }
+
+            resumed.addAll(lines);
+            cursor = toCursor(lines.getLast());
+        }
+
+        assertEquals(whole, resumed);
+    }
+
+    @Test
+    void streamSearch_CursorBuiltFromLastLine_StreamResumed() throws Exception {
+
+        long userId = createUserWithResources();
+
+        List<ResourceInfoResponseDTO> whole = parseLines(stream(userId, get("/api/v1/resource/search/stream")
+                .param("query", "a")));
+        List<ResourceInfoResponseDTO> first = parseLines(stream(userId, get("/api/v1/resource/search/stream")
+                .param("query", "a")
+                .param("limit", "1")));
+        List<ResourceInfoResponseDTO> rest = parseLines(stream(userId, get("/api/v1/resource/search/stream")
+                .param("query", "a")
+                .param("cursor", toCursor(first.getLast()))));
+
+        List<ResourceInfoResponseDTO> resumed = new ArrayList<>(first);
+        resumed.addAll(rest);
+
+        assertAll(
+                () -> assertTrue(whole.size() > 1),
+                () -> assertEquals(whole, resumed)
+        );
+    }
+
+    // the way documented for clients
+    private String toCursor(ResourceInfoResponseDTO resource) {
+
+        return resource.path() + resource.name() + (resource.type() == ResourceType.DIRECTORY ? "/" : "");
+    }
+
+    private List<ResourceInfoResponseDTO> parseLines(MockHttpServletResponse response) throws Exception {
+
+        List<ResourceInfoResponseDTO> resources = new ArrayList<>();
+
+        for (String line : response.getContentAsString().split("\n")) {
+
+            if (!line.isEmpty()) {
+                resources.add(objectMapper.readValue(line, ResourceInfoResponseDTO.class));
+            }
+        }
+
+        return resources;
+    }
+
+    private long createUserWithResources() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Docs/");
+        s3UserService.createDirectory(userId, "Docs/Nested/");
+        s3UserService.upload(userId, "Docs/", new MultipartFile[]{
+                new MockMultipartFile("object", "a.txt", null, "a".getBytes()),
+                new MockMultipartFile("object", "b.txt", null, "b".getBytes()),
+                new MockMultipartFile("object", "Nested/data.txt", null, "c".getBytes())});
+
+        return userId;
+    }
+
+    private MockHttpServletResponse stream(long userId, MockHttpServletRequestBuilder request) throws Exception {
+
+        User user = new User("user", "password");
+        user.setId(userId);
+
+        MvcResult result = mockMvc.perform(request.with(user(new CustomUserDetails(user)))).andReturn();
+
+        // resources are streamed asynchronously
+        return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse();
+    }
+}
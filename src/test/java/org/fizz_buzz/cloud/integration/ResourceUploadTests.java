@@ -0,0 +1,79 @@
+package org.fizz_buzz.cloud.integration;
+
+import org.fizz_buzz.cloud.model.User;
+import org.fizz_buzz.cloud.repository.S3Repository;
+import org.fizz_buzz.cloud.security.CustomUserDetails;
+import org.fizz_buzz.cloud.service.S3UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@AutoConfigureMockMvc
+public class ResourceUploadTests extends IntegrationTestBaseClass {
+
+    private static final String BOUNDARY = "boundary";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private S3UserService s3UserService;
+    @Autowired
+    private S3Repository s3Repository;
+
+    @Test
+    void uploadStream_MultipartBody_FilesUploadedInOrder() throws Exception {
+
+        long userId = nextUserId();
+        User user = new User("user", "password");
+        user.setId(userId);
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Docs/");
+
+        // body is read by the controller itself, so it's sent as it is, not as resolved parts
+        String body = part("object", "a.txt", "first")
+                + part("comment", null, "ignored")
+                + part("object", "b.txt", "second")
+                + "--%s--\r\n".formatted(BOUNDARY);
+
+        MockHttpServletResponse response = mockMvc.perform(post("/api/v1/resource/stream?path=Docs/")
+                        .contentType("multipart/form-data; boundary=%s".formatted(BOUNDARY))
+                        .content(body)
+                        .with(user(new CustomUserDetails(user))))
+                .andReturn()
+                .getResponse();
+
+        assertAll(
+                () -> assertEquals(201, response.getStatus()),
+                () -> assertEquals("first", read(userId, "Docs/a.txt")),
+                () -> assertEquals("second", read(userId, "Docs/b.txt"))
+        );
+    }
+
+    private String part(String name, String fileName, String content) {
+
+        String disposition = fileName == null
+                ? "form-data; name=\"%s\"".formatted(name)
+                : "form-data; name=\"%s\"; filename=\"%s\"".formatted(name, fileName);
+
+        return "--%s\r\nContent-Disposition: %s\r\nContent-Type: text/plain\r\n\r\n%s\r\n"
+                .formatted(BOUNDARY, disposition, content);
+    }
+
+    private String read(long userId, String path) throws Exception {
+
+        try (InputStream dataStream = s3Repository.getResourceByPath(DEFAULT_BUCKET,
+                getTechnicalName(userId, path)).dataStream()) {
+
+            return new String(dataStream.readAllBytes());
+        }
+    }
+}
@@ -3,11 +3,16 @@ package org.fizz_buzz.cloud.integration;
 import com.github.dockerjava.api.model.ExposedPort;
 import com.github.dockerjava.api.model.PortBinding;
 import com.github.dockerjava.api.model.Ports;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import org.fizz_buzz.cloud.concurrent.BulkOperationExecutor;
 import org.fizz_buzz.cloud.dto.ResourceType;
 import org.fizz_buzz.cloud.dto.response.ResourceInfoResponseDTO;
+import org.fizz_buzz.cloud.repository.AsyncMinioRepository;
 import org.fizz_buzz.cloud.repository.MinioRepository;
+import org.fizz_buzz.cloud.repository.MultipartMinioClient;
 import org.fizz_buzz.cloud.repository.S3Repository;
+import org.fizz_buzz.cloud.repository.UploadPartPolicy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +26,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.ArgumentsProvider;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 import org.junit.jupiter.params.support.ParameterDeclarations;
+import org.springframework.util.unit.DataSize;
 import org.testcontainers.containers.MinIOContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -70,7 +76,24 @@ public class S3RepositoryTest {
         @Override
         public Stream<? extends Arguments> provideArguments(ParameterDeclarations parameters, ExtensionContext context) throws Exception {
 
-            return Stream.of(Arguments.of(new MinioRepository(minioClient)));
+            var multipartMinioClient = new MultipartMinioClient(MinioAsyncClient.builder()
+                    .endpoint(minioContainer.getS3URL())
+                    .credentials(S3_USER, S3_PASS)
+                    .build());
+
+            var uploadPartPolicy = new UploadPartPolicy(DataSize.ofMegabytes(16), DataSize.ofMegabytes(8),
+                    DataSize.ofGigabytes(100), 4);
+
+            var minioRepository = new MinioRepository(minioClient, minioClient, multipartMinioClient,
+                    new BulkOperationExecutor(4), uploadPartPolicy);
+
+            var minioAsyncClient = MinioAsyncClient.builder()
+                    .endpoint(minioContainer.getS3URL())
+                    .credentials(S3_USER, S3_PASS)
+                    .build();
+
+            return Stream.of(Arguments.of(minioRepository),
+                    Arguments.of(new AsyncMinioRepository(minioRepository, minioAsyncClient)));
         }
     }
 
@@ -1,26 +1,78 @@
 package org.fizz_buzz.cloud.integration;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.fizz_buzz.cloud.dto.ResourceInfoPage;
+import org.fizz_buzz.cloud.dto.ResourceType;
+import org.fizz_buzz.cloud.dto.response.PresignedUrlResponseDTO;
+import org.fizz_buzz.cloud.dto.response.ResourceInfoResponseDTO;
+import org.fizz_buzz.cloud.dto.response.UploadSessionResponseDTO;
+import org.fizz_buzz.cloud.dto.response.UploadedPartResponseDTO;
+import org.fizz_buzz.cloud.event.ResourcesChangedBus;
+import org.fizz_buzz.cloud.event.ResourcesChangedMessage;
+import org.fizz_buzz.cloud.exception.DirectoryNotExistException;
+import org.fizz_buzz.cloud.exception.InvalidUploadException;
+import org.fizz_buzz.cloud.exception.NestedResourceException;
 import org.fizz_buzz.cloud.exception.NotDirectoryException;
+import org.fizz_buzz.cloud.exception.ResourceAlreadyExistsException;
+import org.fizz_buzz.cloud.exception.ResourceNotFound;
+import org.fizz_buzz.cloud.exception.ResourceTypeMismatchException;
+import org.fizz_buzz.cloud.exception.UploadSessionNotFound;
+import org.fizz_buzz.cloud.model.FilePart;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.model.UploadSession;
+import org.fizz_buzz.cloud.repository.RedisListingCache;
 import org.fizz_buzz.cloud.repository.S3Repository;
+import org.fizz_buzz.cloud.repository.UploadSessionRepository;
+import org.fizz_buzz.cloud.service.ResumableUploadService;
 import org.fizz_buzz.cloud.service.S3UserService;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 
 public class S3UserServiceTests extends IntegrationTestBaseClass {
 
-    private static final String DEFAULT_BUCKET = "user-files";
-    private final static String USER_DIRECTORY = "user-%d-files/";
-
     @Autowired
     private S3UserService s3UserService;
     @Autowired
     private S3Repository s3Repository;
-    private static long currentUserId = 0;
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+    @Autowired
+    private ResourcesChangedBus resourcesChangedBus;
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private RedisListingCache redisListingCache;
 
     @Test
     void createUserDirectory_UserId_Success() {
@@ -88,13 +140,583 @@ public class S3UserServiceTests extends IntegrationTestBaseClass {
         );
     }
 
-    private long nextUserId() {
+    @Test
+    void getResource_UploadedFile_MetadataReturned() {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, content)});
+
+        assertEquals(new ResourceInfoResponseDTO("", "test.txt", (long) content.length, ResourceType.FILE),
+                s3UserService.getResource(userId, "test.txt"));
+    }
+
+    @Test
+    void getResource_NonexistentFile_ResourceNotFound() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+
+        assertThrows(ResourceNotFound.class, () -> s3UserService.getResource(userId, "test.txt"));
+    }
+
+    @Test
+    void getDirectory_FilesAndNestedDirectory_AllListed() {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Test/Nested/");
+        s3UserService.upload(userId, "Test/", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, content)});
+
+        List<ResourceInfoResponseDTO> directory = s3UserService.getDirectory(userId, "Test/");
+
+        assertAll(
+                () -> assertEquals(2, directory.size()),
+                () -> assertTrue(directory.contains(
+                        new ResourceInfoResponseDTO("Test/", "Nested", 0L, ResourceType.DIRECTORY))),
+                () -> assertTrue(directory.contains(
+                        new ResourceInfoResponseDTO("Test/", "test.txt", (long) content.length, ResourceType.FILE)))
+        );
+    }
+
+    @Test
+    void getDirectory_ChangedAfterListing_ListedWithChanges() {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Test/");
+
+        List<ResourceInfoResponseDTO> empty = s3UserService.getDirectory(userId, "Test/");
+
+        s3UserService.upload(userId, "Test/", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, content)});
+
+        List<ResourceInfoResponseDTO> uploaded = s3UserService.getDirectory(userId, "Test/");
+
+        s3UserService.deleteResource(userId, "Test/");
+
+        assertAll(
+                () -> assertTrue(empty.isEmpty()),
+                () -> assertEquals(List.of(
+                        new ResourceInfoResponseDTO("Test/", "test.txt", (long) content.length, ResourceType.FILE)),
+                        uploaded),
+                () -> assertTrue(s3UserService.getDirectory(userId, "").isEmpty()),
+                () -> assertThrows(ResourceNotFound.class, () -> s3UserService.getDirectory(userId, "Test/"))
+        );
+    }
+
+    @Test
+    void getDirectory_ChangedOnOtherNode_ListedWithChanges() throws Exception {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Test/");
+        s3UserService.getDirectory(userId, "Test/");
+
+        // written bypassing this node's services, as if it was done by another node
+        s3Repository.saveResource(DEFAULT_BUCKET, getTechnicalName(userId, "Test/test.txt"),
+                new ByteArrayInputStream(content), content.length, null);
+        redisListingCache.invalidate(DEFAULT_BUCKET, List.of(getTechnicalName(userId, "Test/test.txt")));
+        redisTemplate.convertAndSend(resourcesChangedBus.getChannel(), objectMapper.writeValueAsString(
+                new ResourcesChangedMessage("other-node", DEFAULT_BUCKET,
+                        List.of(getTechnicalName(userId, "Test/test.txt")))));
+
+        List<ResourceInfoResponseDTO> directory = s3UserService.getDirectory(userId, "Test/");
+
+        // message is delivered asynchronously
+        for (int i = 0; i < 50 && directory.isEmpty(); i++) {
+
+            Thread.sleep(100);
+            directory = s3UserService.getDirectory(userId, "Test/");
+        }
+
+        assertEquals(List.of(new ResourceInfoResponseDTO("Test/", "test.txt", (long) content.length,
+                ResourceType.FILE)), directory);
+    }
+
+    @Test
+    void redisListingCache_ListingWrittenAndChanged_ReadUntilChange() {
+
+        long userId = nextUserId();
+        String prefix = getTechnicalName(userId, "Test/");
+        List<ResourceMetadata> listing = List.of(
+                new ResourceMetadata(prefix.concat("Nested/"), 0, null, null),
+                new ResourceMetadata(prefix.concat("test.txt"), 12, "etag",
+                        ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)));
+
+        redisListingCache.put(redisListingCache.get(DEFAULT_BUCKET, prefix), prefix, listing);
+
+        RedisListingCache.Lookup cached = redisListingCache.get(DEFAULT_BUCKET, prefix);
+
+        redisListingCache.invalidate(DEFAULT_BUCKET, List.of(getTechnicalName(userId, "Other/test.txt")));
+
+        assertAll(
+                () -> assertEquals(listing, cached.listing()),
+                () -> assertNull(redisListingCache.get(DEFAULT_BUCKET, prefix).listing())
+        );
+    }
+
+    @Test
+    void redisListingCache_VersionExpiredAfterChange_OldListingNotRead() {
+
+        long userId = nextUserId();
+        String prefix = getTechnicalName(userId, "Test/");
+        List<ResourceMetadata> listing = List.of(new ResourceMetadata(prefix.concat("test.txt"), 12, null, null));
+
+        redisListingCache.invalidate(DEFAULT_BUCKET, List.of(prefix));
+        redisListingCache.put(redisListingCache.get(DEFAULT_BUCKET, prefix), prefix, listing);
+
+        // as if version key expired while the listing is still kept
+        redisTemplate.delete("cloud:listing-version:%s:%s".formatted(DEFAULT_BUCKET, getTechnicalName(userId, "")));
+        redisListingCache.invalidate(DEFAULT_BUCKET, List.of(prefix));
+
+        assertNull(redisListingCache.get(DEFAULT_BUCKET, prefix).listing());
+    }
+
+    @Test
+    void getDirectory_Limit_PagedByCursor() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "A/");
+        s3UserService.createDirectory(userId, "B/");
+        s3UserService.createDirectory(userId, "C/");
+
+        ResourceInfoPage firstPage = s3UserService.getDirectory(userId, "", null, 2);
+        ResourceInfoPage lastPage = s3UserService.getDirectory(userId, "", firstPage.nextCursor(), 2);
+
+        assertAll(
+                () -> assertEquals(List.of("A", "B"),
+                        firstPage.resources().stream().map(ResourceInfoResponseDTO::name).toList()),
+                () -> assertEquals("B/", firstPage.nextCursor()),
+                () -> assertEquals(List.of("C"),
+                        lastPage.resources().stream().map(ResourceInfoResponseDTO::name).toList()),
+                () -> assertNull(lastPage.nextCursor())
+        );
+    }
+
+    @Test
+    void moveResource_DirectoryWithFile_MovedWithContent() {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Old/");
+        s3UserService.upload(userId, "Old/", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, content)});
+
+        ResourceInfoResponseDTO moved = s3UserService.moveResource(userId, "Old/", "New/");
+
+        assertAll(
+                () -> assertEquals(new ResourceInfoResponseDTO("", "New", 0L, ResourceType.DIRECTORY), moved),
+                () -> assertEquals(new ResourceInfoResponseDTO("New/", "test.txt", (long) content.length, ResourceType.FILE),
+                        s3UserService.getResource(userId, "New/test.txt")),
+                () -> assertFalse(s3Repository.isObjectExists(DEFAULT_BUCKET, getTechnicalName(userId, "Old/"))),
+                () -> assertFalse(s3Repository.isObjectExists(DEFAULT_BUCKET, getTechnicalName(userId, "Old/test.txt")))
+        );
+    }
+
+    @Test
+    void copyResource_DirectoryWithFile_SourceKept() {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Source/Nested/");
+        s3UserService.upload(userId, "Source/Nested/", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, content)});
+
+        ResourceInfoResponseDTO copy = s3UserService.copyResource(userId, "Source/", "Copy/");
+
+        assertAll(
+                () -> assertEquals(new ResourceInfoResponseDTO("", "Copy", 0L, ResourceType.DIRECTORY), copy),
+                () -> assertEquals(new ResourceInfoResponseDTO("Copy/Nested/", "test.txt", (long) content.length, ResourceType.FILE),
+                        s3UserService.getResource(userId, "Copy/Nested/test.txt")),
+                () -> assertTrue(s3Repository.isObjectExists(DEFAULT_BUCKET, getTechnicalName(userId, "Source/Nested/test.txt")))
+        );
+    }
+
+    @Test
+    void copyResource_DirectoryIntoItself_NestedResourceException() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Source/");
+
+        assertThrows(NestedResourceException.class,
+                () -> s3UserService.copyResource(userId, "Source/", "Source/Copy/"));
+    }
+
+    @Test
+    void copyResource_DirectoryToFilePath_ResourceTypeMismatchException() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Source/");
+
+        assertThrows(ResourceTypeMismatchException.class,
+                () -> s3UserService.copyResource(userId, "Source/", "Copy"));
+    }
+
+    @Test
+    void copyResource_IntoNonexistentDirectory_DirectoryNotExistException() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, "test content".getBytes())});
+
+        assertAll(
+                () -> assertThrows(DirectoryNotExistException.class,
+                        () -> s3UserService.copyResource(userId, "test.txt", "Missing/test.txt")),
+                () -> assertFalse(s3Repository.isObjectExists(DEFAULT_BUCKET, getTechnicalName(userId, "Missing/test.txt")))
+        );
+    }
+
+    @Test
+    void presignedUrls_UploadAndDownload_DataPassedDirectly() throws Exception {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+
+        PresignedUrlResponseDTO uploadUrl = s3UserService.getPresignedUploadUrl(userId, "test.txt");
+
+        try (HttpClient httpClient = HttpClient.newHttpClient()) {
+
+            var uploadResponse = httpClient.send(HttpRequest.newBuilder(URI.create(uploadUrl.url()))
+                            .PUT(HttpRequest.BodyPublishers.ofByteArray(content))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+
+            PresignedUrlResponseDTO downloadUrl = s3UserService.getPresignedDownloadUrl(userId, "test.txt");
+
+            var downloadResponse = httpClient.send(HttpRequest.newBuilder(URI.create(downloadUrl.url()))
+                            .GET()
+                            .build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+
+            assertAll(
+                    () -> assertEquals(200, uploadResponse.statusCode()),
+                    () -> assertEquals(200, downloadResponse.statusCode()),
+                    () -> assertArrayEquals(content, downloadResponse.body())
+            );
+        }
+    }
+
+    @Test
+    void presignedUrls_FileCreatedAfterUrlIssued_UploadWithIfNoneMatchRejected() throws Exception {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+
+        PresignedUrlResponseDTO uploadUrl = s3UserService.getPresignedUploadUrl(userId, "test.txt");
+
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, content)});
+
+        try (HttpClient httpClient = HttpClient.newHttpClient()) {
+
+            var uploadResponse = httpClient.send(HttpRequest.newBuilder(URI.create(uploadUrl.url()))
+                            .header("If-None-Match", "*")
+                            .PUT(HttpRequest.BodyPublishers.ofByteArray("other content".getBytes()))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+
+            try (InputStream dataStream = s3Repository.getResourceByPath(DEFAULT_BUCKET,
+                    getTechnicalName(userId, "test.txt")).dataStream()) {
+
+                byte[] stored = dataStream.readAllBytes();
+
+                assertAll(
+                        () -> assertEquals(412, uploadResponse.statusCode()),
+                        () -> assertArrayEquals(content, stored)
+                );
+            }
+        }
+    }
+
+    @Test
+    void presignedUrls_UploadConfirmed_ListedAtOnce() throws Exception {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+
+        // listing is cached before the upload bypassing the service
+        List<ResourceInfoResponseDTO> empty = s3UserService.getDirectory(userId, "");
+
+        PresignedUrlResponseDTO uploadUrl = s3UserService.getPresignedUploadUrl(userId, "test.txt");
+
+        try (HttpClient httpClient = HttpClient.newHttpClient()) {
+
+            httpClient.send(HttpRequest.newBuilder(URI.create(uploadUrl.url()))
+                            .PUT(HttpRequest.BodyPublishers.ofByteArray(content))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+        }
+
+        ResourceInfoResponseDTO confirmed = s3UserService.confirmPresignedUpload(userId, "test.txt");
+
+        assertAll(
+                () -> assertTrue(empty.isEmpty()),
+                () -> assertEquals(new ResourceInfoResponseDTO("", "test.txt", (long) content.length,
+                        ResourceType.FILE), confirmed),
+                () -> assertEquals(List.of(confirmed), s3UserService.getDirectory(userId, "")),
+                () -> assertThrows(ResourceNotFound.class,
+                        () -> s3UserService.confirmPresignedUpload(userId, "missing.txt"))
+        );
+    }
+
+    @Test
+    void upload_SeveralFilesInNestedDirectories_ResultsInOrderOfFiles() {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        List<ResourceInfoResponseDTO> uploaded = s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "A/first.txt", null, content),
+                new MockMultipartFile("object", "A/B/second.txt", null, content),
+                new MockMultipartFile("object", "third.txt", null, content)});
+
+        assertAll(
+                () -> assertEquals(List.of(
+                        new ResourceInfoResponseDTO("A/", "first.txt", (long) content.length, ResourceType.FILE),
+                        new ResourceInfoResponseDTO("A/B/", "second.txt", (long) content.length, ResourceType.FILE),
+                        new ResourceInfoResponseDTO("", "third.txt", (long) content.length, ResourceType.FILE)),
+                        uploaded),
+                () -> assertEquals(new ResourceInfoResponseDTO("A/", "B", 0L, ResourceType.DIRECTORY),
+                        s3UserService.getResource(userId, "A/B/"))
+        );
+    }
+
+    @Test
+    void findExistingPaths_ExistingAndMissingNestedPaths_OnlyExistingReturned() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "A/B/");
+        s3UserService.upload(userId, "A/", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, "test content".getBytes())});
+
+        Set<String> existing = s3Repository.findExistingPaths(DEFAULT_BUCKET, List.of(
+                getTechnicalName(userId, ""),
+                getTechnicalName(userId, "A/"),
+                getTechnicalName(userId, "A/B/"),
+                getTechnicalName(userId, "A/test.txt"),
+                getTechnicalName(userId, "A/missing.txt"),
+                getTechnicalName(userId, "C/"),
+                getTechnicalName(userId, "C/D/"),
+                getTechnicalName(userId, "C/D/test.txt")));
+
+        assertEquals(Set.of(
+                getTechnicalName(userId, ""),
+                getTechnicalName(userId, "A/"),
+                getTechnicalName(userId, "A/B/"),
+                getTechnicalName(userId, "A/test.txt")), existing);
+    }
+
+    @Test
+    void upload_DirectoryAlreadyExists_ResourceAlreadyExistsException() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "A/B/");
+
+        assertThrows(ResourceAlreadyExistsException.class, () -> s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "A/B/test.txt", null, "test content".getBytes())}));
+    }
+
+    @Test
+    void createDirectory_AlreadyExists_ResourceAlreadyExistsException() {
+
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.createDirectory(userId, "Test/");
+
+        assertThrows(ResourceAlreadyExistsException.class, () -> s3UserService.createDirectory(userId, "Test/"));
+    }
+
+    @Test
+    void upload_StreamedFileAlreadyExists_NotOverwritten() throws Exception {
+
+        long userId = nextUserId();
+        byte[] content = "test content".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", new MultipartFile[]{
+                new MockMultipartFile("object", "test.txt", null, content)});
+
+        assertThrows(ResourceAlreadyExistsException.class, () -> s3UserService.upload(userId, "", List.of(
+                new FilePart("test.txt", null, new ByteArrayInputStream("other".getBytes()), -1)).iterator()));
+
+        try (InputStream dataStream = s3Repository.getResourceByPath(DEFAULT_BUCKET,
+                getTechnicalName(userId, "test.txt")).dataStream()) {
+
+            assertArrayEquals(content, dataStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void upload_StreamedFilesIntoNewDirectory_AllUploaded() {
+
+        long userId = nextUserId();
+        byte[] first = "first".getBytes();
+        byte[] second = "second file".getBytes();
+
+        s3UserService.createUserDirectory(userId);
+        List<ResourceInfoResponseDTO> uploaded = s3UserService.upload(userId, "", List.of(
+                new FilePart("Dir/first.txt", null, new ByteArrayInputStream(first), -1),
+                new FilePart("Dir/second.txt", null, new ByteArrayInputStream(second), -1)).iterator());
+
+        assertAll(
+                () -> assertEquals(List.of(
+                        new ResourceInfoResponseDTO("Dir/", "first.txt", (long) first.length, ResourceType.FILE),
+                        new ResourceInfoResponseDTO("Dir/", "second.txt", (long) second.length, ResourceType.FILE)),
+                        uploaded),
+                () -> assertTrue(s3Repository.isObjectExists(DEFAULT_BUCKET, getTechnicalName(userId, "Dir/")))
+        );
+    }
+
+    @Test
+    void upload_StreamedFileLargerThanPart_UploadedByParts() throws Exception {
+
+        long userId = nextUserId();
+        byte[] content = new byte[20 * 1024 * 1024 + 10];
+        new Random(userId).nextBytes(content);
+
+        s3UserService.createUserDirectory(userId);
+        s3UserService.upload(userId, "", List.of(
+                new FilePart("big.bin", null, new ByteArrayInputStream(content), -1)).iterator());
+
+        try (InputStream dataStream = s3Repository.getResourceByPath(DEFAULT_BUCKET,
+                getTechnicalName(userId, "big.bin")).dataStream()) {
+
+            assertArrayEquals(content, dataStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void resumableUpload_PartsSentOutOfOrder_FileAssembled() {
+
+        long userId = nextUserId();
+        byte[] content = new byte[8 * 1024 * 1024 + 10];
+        new Random(userId).nextBytes(content);
+
+        s3UserService.createUserDirectory(userId);
+        UploadSessionResponseDTO session = resumableUploadService.initiate(userId, "big.bin", content.length);
+        int partSize = (int) session.partSize();
+
+        resumableUploadService.uploadPart(userId, session.id(), partSize, content.length - partSize,
+                new ByteArrayInputStream(content, partSize, content.length - partSize));
+
+        assertAll(
+                () -> assertEquals(List.of(new UploadedPartResponseDTO(partSize, content.length - partSize)),
+                        resumableUploadService.getStatus(userId, session.id()).uploadedParts()),
+                () -> assertThrows(InvalidUploadException.class,
+                        () -> resumableUploadService.complete(userId, session.id()))
+        );
+
+        resumableUploadService.uploadPart(userId, session.id(), 0, partSize,
+                new ByteArrayInputStream(content, 0, partSize));
+        ResourceInfoResponseDTO uploaded = resumableUploadService.complete(userId, session.id());
+
+        assertAll(
+                () -> assertEquals(new ResourceInfoResponseDTO("", "big.bin", (long) content.length, ResourceType.FILE),
+                        uploaded),
+                () -> assertThrows(UploadSessionNotFound.class,
+                        () -> resumableUploadService.getStatus(userId, session.id()))
+        );
+    }
+
+    @Test
+    void initiate_ConcurrentInitiatesOfSamePath_OneSessionCreated() throws InterruptedException {
+
+        long userId = nextUserId();
+        int attempts = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        int initiated = 0;
+        int conflicts = 0;
+
+        s3UserService.createUserDirectory(userId);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(attempts)) {
 
-        return currentUserId++;
+            List<Future<UploadSessionResponseDTO>> sessions = IntStream.range(0, attempts)
+                    .mapToObj(i -> executor.submit(() -> {
+
+                        start.await();
+
+                        return resumableUploadService.initiate(userId, "big.bin", 1024);
+                    }))
+                    .toList();
+
+            start.countDown();
+
+            for (Future<UploadSessionResponseDTO> session : sessions) {
+
+                try {
+
+                    session.get();
+                    initiated++;
+                } catch (ExecutionException e) {
+
+                    assertInstanceOf(ResourceAlreadyExistsException.class, e.getCause());
+                    conflicts++;
+                }
+            }
+        }
+
+        assertEquals(1, initiated);
+        assertEquals(attempts - 1, conflicts);
+        assertThrows(ResourceAlreadyExistsException.class,
+                () -> resumableUploadService.initiate(userId, "big.bin", 1024));
     }
 
-    private String getTechnicalName(long userId, String resourcePath) {
+    @Test
+    void initiate_ExpiredSessionOfSamePath_SessionReplaced() {
 
-        return USER_DIRECTORY.formatted(userId).concat(resourcePath);
+        long userId = nextUserId();
+
+        s3UserService.createUserDirectory(userId);
+        UploadSessionResponseDTO expired = resumableUploadService.initiate(userId, "big.bin", 1024);
+
+        // the cleanup hasn't reached the session yet
+        UploadSession session = uploadSessionRepository.findById(expired.id()).orElseThrow();
+        session.setExpiresAt(Instant.now().minusSeconds(1));
+        uploadSessionRepository.save(session);
+
+        UploadSessionResponseDTO replacing = resumableUploadService.initiate(userId, "big.bin", 1024);
+
+        assertAll(
+                () -> assertNotEquals(expired.id(), replacing.id()),
+                () -> assertTrue(uploadSessionRepository.findById(expired.id()).isEmpty()),
+                () -> assertEquals(List.of(), resumableUploadService.getStatus(userId, replacing.id()).uploadedParts())
+        );
     }
 }
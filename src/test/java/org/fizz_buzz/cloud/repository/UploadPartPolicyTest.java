@@ -0,0 +1,62 @@
+package org.fizz_buzz.cloud.repository;
+
+import io.minio.ObjectWriteArgs;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadPartPolicyTest {
+
+    private final UploadPartPolicy uploadPartPolicy = new UploadPartPolicy(DataSize.ofMegabytes(16),
+            DataSize.ofMegabytes(8), DataSize.ofGigabytes(100), 4);
+
+    @Test
+    public void partSize_UnknownSize_MaxSizeFitsIntoPartsLimit() {
+
+        long partSize = uploadPartPolicy.partSize(-1);
+
+        assertTrue(partSize * ObjectWriteArgs.MAX_MULTIPART_COUNT >= DataSize.ofGigabytes(100).toBytes());
+    }
+
+    @Test
+    public void partSize_SmallObject_DefaultPartSize() {
+
+        assertEquals(DataSize.ofMegabytes(8).toBytes(), uploadPartPolicy.partSize(DataSize.ofMegabytes(64).toBytes()));
+    }
+
+    @Test
+    public void partSize_LargeObject_FitsIntoPartsLimit() {
+
+        long size = DataSize.ofGigabytes(200).toBytes();
+
+        assertTrue(uploadPartPolicy.partSize(size) * ObjectWriteArgs.MAX_MULTIPART_COUNT >= size);
+    }
+
+    @Test
+    public void constructor_ThresholdAboveSinglePutLimit_Rejected() {
+
+        DataSize threshold = DataSize.ofBytes(ObjectWriteArgs.MAX_PART_SIZE + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> new UploadPartPolicy(threshold, DataSize.ofMegabytes(8),
+                DataSize.ofGigabytes(100), 4));
+    }
+
+    @Test
+    public void constructor_ThresholdBelowPartSize_Rejected() {
+
+        assertThrows(IllegalArgumentException.class, () -> new UploadPartPolicy(DataSize.ofMegabytes(8),
+                DataSize.ofMegabytes(16), DataSize.ofGigabytes(100), 4));
+    }
+
+    @Test
+    public void constructor_ThresholdAtBounds_Accepted() {
+
+        assertAll(
+                () -> assertDoesNotThrow(() -> new UploadPartPolicy(DataSize.ofMegabytes(8), DataSize.ofMegabytes(8),
+                        DataSize.ofGigabytes(100), 4)),
+                () -> assertDoesNotThrow(() -> new UploadPartPolicy(DataSize.ofBytes(ObjectWriteArgs.MAX_PART_SIZE),
+                        DataSize.ofMegabytes(8), DataSize.ofGigabytes(100), 4))
+        );
+    }
+}
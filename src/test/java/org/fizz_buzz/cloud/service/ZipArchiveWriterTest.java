@@ -0,0 +1,258 @@
+package org.fizz_buzz.cloud.service;
+
+import org.fizz_buzz.cloud.concurrent.BulkOperationExecutor;
+import org.fizz_buzz.cloud.dto.ArchiveCompression;
+import org.fizz_buzz.cloud.model.Resource;
+import org.fizz_buzz.cloud.model.ResourceMetadata;
+import org.fizz_buzz.cloud.repository.S3Repository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ZipArchiveWriterTest {
+
+    private static final String BUCKET = "user-files";
+    private static final byte[] CONTENT = "0123456789".getBytes();
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static final byte[] BIG_CONTENT = new byte[256 * 1024];
+
+    static {
+        new Random(42).nextBytes(BIG_CONTENT);
+    }
+
+    private final BulkOperationExecutor bulkOperationExecutor = new BulkOperationExecutor(4);
+    private final S3Repository s3Repository = mock(S3Repository.class);
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+    private final AtomicInteger currentlyOpened = new AtomicInteger();
+    private final AtomicInteger maxOpened = new AtomicInteger();
+
+    @AfterEach
+    public void tearDown() {
+
+        bulkOperationExecutor.shutdown();
+    }
+
+    @Test
+    public void write_AbortedWhilePrefetchInFlight_AllOpenedStreamsClosed() throws Exception {
+
+        // objects are bigger than prefetch limit, so their streams are kept opened
+        var zipArchiveWriter = new ZipArchiveWriter(s3Repository, bulkOperationExecutor, 2, DataSize.ofBytes(1));
+        CountDownLatch requested = new CountDownLatch(2);
+        CompletableFuture<Void> responses = new CompletableFuture<>();
+
+        when(s3Repository.getResourceByPath(eq(BUCKET), anyString())).thenAnswer(invocation -> {
+
+            String path = invocation.getArgument(1);
+
+            // like a request to S3, opening isn't interrupted by cancellation
+            if (!path.equals("file-0.txt")) {
+
+                requested.countDown();
+                responses.join();
+            }
+
+            return new Resource(path, trackedStream(CONTENT), CONTENT.length);
+        });
+
+        // client disconnects before the first entry is written, while next objects are being requested
+        OutputStream outputStream = new OutputStream() {
+
+            @Override
+            public void write(int b) throws IOException {
+
+                try {
+
+                    requested.await();
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+                }
+
+                throw new IOException("Connection reset");
+            }
+        };
+
+        assertThrows(IOException.class, () -> zipArchiveWriter.write(outputStream, BUCKET, IntStream.range(0, 4)
+                .mapToObj(i -> new ResourceMetadata("file-%d.txt".formatted(i), CONTENT.length, null,
+                        ZonedDateTime.now())), 0, ArchiveCompression.DEFLATE));
+
+        responses.complete(null);
+
+        // the current object and both prefetched ones
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+        while (closed.get() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertAll(
+                () -> assertEquals(3, opened.get()),
+                () -> assertEquals(opened.get(), closed.get())
+        );
+    }
+
+    @Test
+    public void write_StoreCompression_AllEntriesStored() throws Exception {
+
+        Map<String, byte[]> objects = new LinkedHashMap<>();
+        objects.put("user-1-files/Docs/", new byte[0]);
+        objects.put("user-1-files/Docs/small.txt", CONTENT);
+        objects.put("user-1-files/Docs/big.txt", BIG_CONTENT);
+
+        Map<String, ZipEntry> entries = new HashMap<>();
+        Map<String, byte[]> contents = new HashMap<>();
+
+        readArchive(write(objects, ArchiveCompression.STORE), entries, contents);
+
+        assertAll(
+                () -> assertEquals(Set.of("Docs/", "Docs/small.txt", "Docs/big.txt"), entries.keySet()),
+                () -> assertTrue(entries.get("Docs/").isDirectory()),
+                () -> assertEquals(ZipEntry.STORED, entries.get("Docs/small.txt").getMethod()),
+                () -> assertEquals(ZipEntry.STORED, entries.get("Docs/big.txt").getMethod()),
+                () -> assertArrayEquals(CONTENT, contents.get("Docs/small.txt")),
+                () -> assertArrayEquals(BIG_CONTENT, contents.get("Docs/big.txt"))
+        );
+    }
+
+    @Test
+    public void write_AutoCompression_OnlyCompressedFormatsStored() throws Exception {
+
+        Map<String, byte[]> objects = new LinkedHashMap<>();
+        objects.put("user-1-files/small.jpg", CONTENT);
+        objects.put("user-1-files/big.jpg", BIG_CONTENT);
+        objects.put("user-1-files/small.txt", CONTENT);
+        objects.put("user-1-files/big.txt", BIG_CONTENT);
+
+        Map<String, ZipEntry> entries = new HashMap<>();
+        Map<String, byte[]> contents = new HashMap<>();
+
+        readArchive(write(objects, ArchiveCompression.AUTO), entries, contents);
+
+        assertAll(
+                () -> assertEquals(ZipEntry.STORED, entries.get("small.jpg").getMethod()),
+                () -> assertEquals(ZipEntry.STORED, entries.get("big.jpg").getMethod()),
+                () -> assertEquals(ZipEntry.DEFLATED, entries.get("small.txt").getMethod()),
+                () -> assertEquals(ZipEntry.DEFLATED, entries.get("big.txt").getMethod()),
+                () -> assertArrayEquals(CONTENT, contents.get("small.jpg")),
+                () -> assertArrayEquals(BIG_CONTENT, contents.get("big.jpg")),
+                () -> assertArrayEquals(CONTENT, contents.get("small.txt")),
+                () -> assertArrayEquals(BIG_CONTENT, contents.get("big.txt"))
+        );
+    }
+
+    @Test
+    public void write_ManyStreamedObjects_OpenedStreamsBoundedByWindow() throws Exception {
+
+        int prefetchCount = 2;
+        var zipArchiveWriter = new ZipArchiveWriter(s3Repository, bulkOperationExecutor, prefetchCount,
+                DataSize.ofBytes(1));
+
+        when(s3Repository.getResourceByPath(eq(BUCKET), anyString())).thenAnswer(invocation ->
+                new Resource(invocation.getArgument(1), trackedStream(CONTENT), CONTENT.length));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        zipArchiveWriter.write(outputStream, BUCKET, IntStream.range(0, 20)
+                .mapToObj(i -> new ResourceMetadata("file-%d.txt".formatted(i), CONTENT.length, null,
+                        ZonedDateTime.now())), 0, ArchiveCompression.DEFLATE);
+
+        Map<String, ZipEntry> entries = new HashMap<>();
+        Map<String, byte[]> contents = new HashMap<>();
+
+        readArchive(outputStream.toByteArray(), entries, contents);
+
+        // the current object and prefetchCount next ones
+        assertAll(
+                () -> assertEquals(20, entries.size()),
+                () -> assertTrue(contents.values().stream().allMatch(content -> Arrays.equals(CONTENT, content))),
+                () -> assertEquals(20, opened.get()),
+                () -> assertEquals(opened.get(), closed.get()),
+                () -> assertTrue(maxOpened.get() <= prefetchCount + 1)
+        );
+    }
+
+    // counts streams opened at the same time, resource's cleaner may close the stream once again
+    private ByteArrayInputStream trackedStream(byte[] content) {
+
+        opened.incrementAndGet();
+        maxOpened.accumulateAndGet(currentlyOpened.incrementAndGet(), Math::max);
+
+        return new ByteArrayInputStream(content) {
+
+            private boolean isClosed;
+
+            @Override
+            public synchronized void close() {
+
+                if (!isClosed) {
+
+                    isClosed = true;
+                    currentlyOpened.decrementAndGet();
+                    closed.incrementAndGet();
+                }
+            }
+        };
+    }
+
+    // objects bigger than CONTENT are streamed instead of being read in advance
+    private byte[] write(Map<String, byte[]> objects, ArchiveCompression compression) throws IOException {
+
+        var zipArchiveWriter = new ZipArchiveWriter(s3Repository, bulkOperationExecutor, 2,
+                DataSize.ofBytes(CONTENT.length));
+
+        when(s3Repository.getResourceByPath(eq(BUCKET), anyString())).thenAnswer(invocation -> {
+
+            byte[] object = objects.get(invocation.<String>getArgument(1));
+
+            return new Resource(invocation.getArgument(1), new ByteArrayInputStream(object), object.length);
+        });
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        zipArchiveWriter.write(outputStream, BUCKET, objects.entrySet().stream()
+                .map(object -> new ResourceMetadata(object.getKey(), object.getValue().length, null,
+                        ZonedDateTime.now())), "user-1-files/".length(), compression);
+
+        return outputStream.toByteArray();
+    }
+
+    private void readArchive(byte[] archive, Map<String, ZipEntry> entries, Map<String, byte[]> contents)
+            throws IOException {
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(archive))) {
+
+            ZipEntry zipEntry;
+
+            while ((zipEntry = zis.getNextEntry()) != null) {
+
+                entries.put(zipEntry.getName(), zipEntry);
+                contents.put(zipEntry.getName(), zis.readAllBytes());
+            }
+        }
+    }
+}